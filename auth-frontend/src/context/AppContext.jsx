@@ -1,4 +1,4 @@
-import { createContext, useState, useEffect } from "react";
+import { createContext, useState, useEffect, useRef } from "react";
 import axios from "axios";
 import { AppConstants } from "../util/constants";
 
@@ -10,25 +10,64 @@ export const AppContextProvider = ({ children }) => {
   const [userData, setUserData] = useState(null);
   const [isLoggedIn, setIsLoggedIn] = useState(false);
 
+  // In-flight /refresh call shared by every request that got a 401
+  const refreshing = useRef(null);
+
   // Axios default config (important)
   axios.defaults.withCredentials = true;
 
-  // Check authentication status
-  const checkAuth = async () => {
-    try {
-      const res = await axios.get(`${backendUrl}/is-authenticated`);
-      setIsLoggedIn(res.data === true);
-    } catch {
-      setIsLoggedIn(false);
-      setUserData(null);
-    }
-  };
+  // Access tokens are short-lived: on a 401, rotate the refresh token and retry.
+  // Refresh tokens are single use, so concurrent 401s wait for one shared
+  // /refresh instead of each sending their own (the server treats a second
+  // use of the same token as theft and revokes the session).
+  // Another tab may rotate the cookie first: the server answers 409 and the
+  // retry goes out with the cookie that tab received.
+  useEffect(() => {
+    const refresh = () =>
+      axios.post(`${backendUrl}/refresh`).catch((err) => {
+        if (err.response?.status === 409) {
+          return axios.post(`${backendUrl}/refresh`);
+        }
+        throw err;
+      });
+
+    const interceptor = axios.interceptors.response.use(
+      (response) => response,
+      async (error) => {
+        const original = error.config;
+        if (
+          error.response?.status === 401 &&
+          original &&
+          !original._retry &&
+          !original.url.endsWith("/refresh") &&
+          !original.url.endsWith("/login")
+        ) {
+          original._retry = true;
+          try {
+            if (!refreshing.current) {
+              refreshing.current = refresh().finally(() => {
+                refreshing.current = null;
+              });
+            }
+            await refreshing.current;
+            return axios(original);
+          } catch {
+            // Refresh failed: fall through to the original error
+          }
+        }
+        return Promise.reject(error);
+      }
+    );
+    return () => axios.interceptors.response.eject(interceptor);
+  }, [backendUrl]);
 
-  // Fetch logged-in user profile
+  // Auth status + profile in one request (/session). The browser revalidates
+  // it with If-None-Match, so an unchanged profile comes back as 304.
   const getUserData = async () => {
     try {
-      const res = await axios.get(`${backendUrl}/profile`);
-      setUserData(res.data);
+      const res = await axios.get(`${backendUrl}/session`);
+      setIsLoggedIn(res.data.authenticated === true);
+      setUserData(res.data.profile);
     } catch {
       setUserData(null);
       setIsLoggedIn(false);
@@ -49,7 +88,6 @@ export const AppContextProvider = ({ children }) => {
 
   // On app load
   useEffect(() => {
-    checkAuth();
     getUserData();
   }, []);
 
@@ -2,8 +2,12 @@ package com.mahesh.auth.auth_service;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
+@PropertySource("classpath:auth-defaults.properties")
 public class AuthenticationServiceApplication {
 
 	public static void main(String[] args) {
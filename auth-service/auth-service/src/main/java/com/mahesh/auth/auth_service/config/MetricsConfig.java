@@ -0,0 +1,98 @@
+package com.mahesh.auth.auth_service.config;
+
+import com.mahesh.auth.auth_service.service.MailDispatcher;
+import com.mahesh.auth.auth_service.service.TokenRevocationService;
+import com.mahesh.auth.auth_service.service.UserDetailsCache;
+import com.mahesh.auth.auth_service.util.VerifiedTokenCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the internal stats kept by caches, the password encoder and the
+ * mail dispatcher as Micrometer meters (scraped at /actuator/prometheus).
+ * Repository call latency comes from Spring Boot's built-in
+ * spring.data.repository.invocations timer.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder cacheMetrics(UserDetailsCache userDetailsCache,
+                                    VerifiedTokenCache verifiedTokenCache) {
+        return registry -> {
+            CaffeineCacheMetrics.monitor(registry, userDetailsCache.getNativeCache(), "users");
+            CaffeineCacheMetrics.monitor(registry, verifiedTokenCache.getNativeCache(), "verifiedTokens");
+        };
+    }
+
+    @Bean
+    public MeterBinder revocationMetrics(TokenRevocationService tokenRevocationService) {
+        return registry -> Gauge.builder("auth.token.revoked", tokenRevocationService,
+                        TokenRevocationService::getRevokedTokenCount)
+                .description("Revoked access tokens held in memory")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder passwordHashMetrics(BoundedPasswordEncoder passwordEncoder) {
+        return registry -> {
+            FunctionTimer.builder("auth.password.hash", passwordEncoder,
+                            BoundedPasswordEncoder::getHashCount,
+                            BoundedPasswordEncoder::getHashNanos,
+                            TimeUnit.NANOSECONDS)
+                    .description("Password encode/matches time on the hashing pool")
+                    .register(registry);
+            FunctionTimer.builder("auth.password.hash.wait", passwordEncoder,
+                            BoundedPasswordEncoder::getHashCount,
+                            BoundedPasswordEncoder::getQueueNanos,
+                            TimeUnit.NANOSECONDS)
+                    .description("Time hash operations waited for a thread")
+                    .register(registry);
+            Gauge.builder("auth.password.hash.queue", passwordEncoder, BoundedPasswordEncoder::getQueueDepth)
+                    .description("Hash operations waiting for a thread")
+                    .register(registry);
+            Gauge.builder("auth.password.hash.active", passwordEncoder, BoundedPasswordEncoder::getActiveCount)
+                    .register(registry);
+            FunctionCounter.builder("auth.password.hash.rejected", passwordEncoder,
+                            BoundedPasswordEncoder::getRejectedCount)
+                    .description("Hash operations rejected with 503")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder mailMetrics(MailDispatcher mailDispatcher) {
+        return registry -> {
+            FunctionTimer.builder("auth.mail.send", mailDispatcher,
+                            MailDispatcher::getSendCalls,
+                            MailDispatcher::getSendNanos,
+                            TimeUnit.NANOSECONDS)
+                    .description("SMTP send time per batch")
+                    .register(registry);
+            Gauge.builder("auth.mail.queue", mailDispatcher, MailDispatcher::getQueueSize)
+                    .register(registry);
+            mailCounter(registry, mailDispatcher, "sent", MailDispatcher::getSentMessages);
+            mailCounter(registry, mailDispatcher, "failed_attempt", MailDispatcher::getFailedAttempts);
+            mailCounter(registry, mailDispatcher, "dropped", MailDispatcher::getDroppedMessages);
+            mailCounter(registry, mailDispatcher, "rejected", MailDispatcher::getRejectedMessages);
+        };
+    }
+
+    private static void mailCounter(MeterRegistry registry,
+                                    MailDispatcher mailDispatcher,
+                                    String outcome,
+                                    ToDoubleFunction<MailDispatcher> count) {
+        FunctionCounter.builder("auth.mail.messages", mailDispatcher, count)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
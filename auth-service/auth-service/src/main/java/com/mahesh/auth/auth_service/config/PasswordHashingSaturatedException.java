@@ -0,0 +1,14 @@
+package com.mahesh.auth.auth_service.config;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Thrown when the password hashing pool and its queue are full.
+ */
+public class PasswordHashingSaturatedException extends ResponseStatusException {
+
+    public PasswordHashingSaturatedException() {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Server is busy, please try again later");
+    }
+}
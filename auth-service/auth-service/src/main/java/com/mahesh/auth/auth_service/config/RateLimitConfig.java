@@ -0,0 +1,18 @@
+package com.mahesh.auth.auth_service.config;
+
+import com.mahesh.auth.auth_service.service.InMemoryRateLimitStore;
+import com.mahesh.auth.auth_service.service.RateLimitStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RateLimitConfig {
+
+    // Per-instance buckets unless a shared store bean is provided
+    @Bean
+    @ConditionalOnMissingBean(RateLimitStore.class)
+    public RateLimitStore rateLimitStore() {
+        return new InMemoryRateLimitStore();
+    }
+}
@@ -0,0 +1,56 @@
+package com.mahesh.auth.auth_service.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+
+/**
+ * Primary + replica pools behind {@link ReadWriteRoutingDataSource}.
+ * Replaces Boot's single DataSource when auth.datasource.replica.enabled=true.
+ * Pool settings come from spring.datasource.hikari.* and
+ * auth.datasource.replica.hikari.* respectively.
+ */
+@Configuration
+@ConditionalOnProperty(name = "auth.datasource.replica.enabled", havingValue = "true")
+public class ReadWriteRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(
+            @Value("${spring.datasource.url}") String url,
+            @Value("${spring.datasource.username:}") String username,
+            @Value("${spring.datasource.password:}") String password) {
+        return DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(url).username(username).password(password)
+                .build();
+    }
+
+    @Bean
+    @ConfigurationProperties("auth.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Value("${auth.datasource.replica.url}") String url,
+            @Value("${auth.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${auth.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource replica = DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(url).username(username).password(password)
+                .build();
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReadYourWritesTracker readYourWrites) {
+        return ReadWriteRoutingDataSource.create(primary, replica, readYourWrites);
+    }
+}
@@ -0,0 +1,81 @@
+package com.mahesh.auth.auth_service.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Read-your-writes for replica routing.
+ * Writes record the user's email; for the next window (an upper bound on
+ * replica lag) reads made through {@link #readFor} for that user are sent
+ * to the primary instead of a replica that may not have the write yet.
+ * A no-op unless auth.datasource.replica.enabled=true.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private final boolean enabled;
+    private final Cache<String, Boolean> recentWriters;
+    private final ThreadLocal<String> currentUser = new ThreadLocal<>();
+
+    public ReadYourWritesTracker(
+            @Value("${auth.datasource.replica.enabled:false}") boolean enabled,
+            @Value("${auth.datasource.replica.read-your-writes-window:5s}") Duration window) {
+        this.enabled = enabled;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    // Call from write paths; the window restarts when the transaction commits
+    public void wrote(String email) {
+        if (!enabled || email == null) {
+            return;
+        }
+        String key = key(email);
+        recentWriters.put(key, Boolean.TRUE);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recentWriters.put(key, Boolean.TRUE);
+                }
+            });
+        }
+    }
+
+    /** Run a read on behalf of a user so routing can apply read-your-writes. */
+    public <T> T readFor(String email, Supplier<T> read) {
+        if (!enabled || email == null) {
+            return read.get();
+        }
+        String previous = currentUser.get();
+        currentUser.set(key(email));
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                currentUser.remove();
+            } else {
+                currentUser.set(previous);
+            }
+        }
+    }
+
+    boolean mustReadPrimary() {
+        String user = currentUser.get();
+        return user != null && recentWriters.getIfPresent(user) != null;
+    }
+
+    private static String key(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -3,8 +3,13 @@ package com.mahesh.auth.auth_service.config;
 import com.mahesh.auth.auth_service.filter.JwtRequestFilter;
 import com.mahesh.auth.auth_service.service.AppUserDetailsService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
+import org.springframework.boot.security.autoconfigure.actuate.web.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -13,7 +18,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -33,6 +37,31 @@ public class SecurityConfig {
     private final CustomAuthenticationEntryPoint authenticationEntryPoint;
 
 
+    // Actuator endpoints. On a separate management.server.port they are left open for the
+    // scraper (that port is internal); on the application port only health is reachable.
+    @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorFilterChain(HttpSecurity http, Environment environment) throws Exception {
+        boolean separatePort = ManagementPortType.get(environment) == ManagementPortType.DIFFERENT;
+
+        http
+                .securityMatcher(EndpointRequest.toAnyEndpoint())
+                .csrf(AbstractHttpConfigurer::disable)
+                .sessionManagement(session ->
+                        session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                )
+                .authorizeHttpRequests(auth -> {
+                    auth.requestMatchers(EndpointRequest.to("health")).permitAll();
+                    if (separatePort) {
+                        auth.anyRequest().permitAll();
+                    } else {
+                        auth.anyRequest().denyAll();
+                    }
+                });
+
+        return http.build();
+    }
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
 
@@ -58,7 +87,10 @@ public class SecurityConfig {
                                 "/register",
                                 "/api/profile/register",
                                 "/send-reset-otp",
-                                "/reset-password"
+                                "/reset-password",
+                                "/refresh",
+                                "/session",
+                                "/.well-known/jwks.json"
                         ).permitAll()
                         .anyRequest().authenticated()
                 )
@@ -73,20 +105,30 @@ public class SecurityConfig {
         return http.build();
     }
 
-    // Password encoder
+    // Password encoder (delegating encoder on a bounded pool, see BoundedPasswordEncoder)
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder(
+            @Value("${auth.password.algorithm:bcrypt}") String algorithm,
+            @Value("${auth.password.bcrypt-strength:10}") int bcryptStrength,
+            @Value("${auth.password.hash-threads:0}") int threads,
+            @Value("${auth.password.hash-queue-capacity:64}") int queueCapacity) {
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(
+                PasswordEncoders.delegating(algorithm, bcryptStrength), poolSize, queueCapacity);
     }
 
     // Authentication manager
     @Bean
-    public AuthenticationManager authenticationManager() {
+    public AuthenticationManager authenticationManager(PasswordEncoder passwordEncoder) {
 
         DaoAuthenticationProvider authenticationProvider =
                 new DaoAuthenticationProvider(appUserDetailsService);
 
-        authenticationProvider.setPasswordEncoder(passwordEncoder());
+        authenticationProvider.setPasswordEncoder(passwordEncoder);
+
+        // Rehash on successful login when the stored hash uses outdated parameters
+        authenticationProvider.setUserDetailsPasswordService(appUserDetailsService);
 
         return new ProviderManager(authenticationProvider);
     }
@@ -0,0 +1,67 @@
+package com.mahesh.auth.auth_service.config;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Picks the shard bound to the current thread by {@link UserShards}, or the
+ * home shard (0) when none is bound. Like {@link ReadWriteRoutingDataSource}
+ * it must sit behind a {@link LazyConnectionDataSourceProxy}, so a
+ * transaction is pinned to whichever shard is bound at its first statement.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final List<? extends DataSource> shards;
+
+    public ShardRoutingDataSource(List<? extends DataSource> shards) {
+        this.shards = List.copyOf(shards);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(UserShards.HOME_SHARD));
+        afterPropertiesSet();
+    }
+
+    static Integer currentShard() {
+        return CURRENT_SHARD.get();
+    }
+
+    static void bind(Integer shard) {
+        if (shard == null) {
+            CURRENT_SHARD.remove();
+        } else {
+            CURRENT_SHARD.set(shard);
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return CURRENT_SHARD.get();
+    }
+
+    // The shard pools are not beans of their own, so close them with the router
+    @Override
+    public void close() throws SQLException {
+        for (DataSource shard : shards) {
+            if (shard.isWrapperFor(AutoCloseable.class)) {
+                try {
+                    shard.unwrap(AutoCloseable.class).close();
+                } catch (SQLException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    throw new SQLException("Failed to close shard pool", ex);
+                }
+            }
+        }
+    }
+}
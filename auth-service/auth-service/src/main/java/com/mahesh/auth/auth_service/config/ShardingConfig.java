@@ -0,0 +1,71 @@
+package com.mahesh.auth.auth_service.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One pool per shard behind {@link ShardRoutingDataSource}, replacing Boot's
+ * single DataSource when auth.sharding.enabled=true. Shard 0 is
+ * spring.datasource.url; auth.sharding.urls adds the others (same
+ * credentials unless auth.sharding.username/password are set).
+ */
+@Configuration
+@ConditionalOnProperty(name = "auth.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(
+            @Value("${spring.datasource.url}") String homeUrl,
+            @Value("${spring.datasource.username:}") String homeUsername,
+            @Value("${spring.datasource.password:}") String homePassword,
+            @Value("${auth.sharding.urls}") String[] shardUrls,
+            @Value("${auth.sharding.username:${spring.datasource.username:}}") String username,
+            @Value("${auth.sharding.password:${spring.datasource.password:}}") String password,
+            @Value("${auth.sharding.pool-size:${spring.datasource.hikari.maximum-pool-size:10}}") int poolSize,
+            @Value("${auth.jdbc.max-concurrency:0}") int maxConcurrency,
+            @Value("${auth.jdbc.acquire-timeout:5s}") Duration acquireTimeout,
+            @Value("${auth.datasource.replica.enabled:false}") boolean replicaEnabled) {
+
+        if (replicaEnabled) {
+            throw new IllegalStateException(
+                    "auth.sharding.enabled cannot be combined with auth.datasource.replica.enabled");
+        }
+
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(pool(0, homeUrl, homeUsername, homePassword, poolSize));
+        for (String url : shardUrls) {
+            shards.add(pool(shards.size(), url.trim(), username, password, poolSize));
+        }
+        // The pools are not beans, so VirtualThreadConfig's limiter is applied here (per shard)
+        if (maxConcurrency > 0) {
+            shards.replaceAll(shard -> new ConcurrencyLimitingDataSource(shard, maxConcurrency, acquireTimeout));
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    private static HikariDataSource pool(int shard, String url, String username, String password, int poolSize) {
+        HikariDataSource pool = DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(url).username(username).password(password)
+                .build();
+        pool.setPoolName("shard-" + shard);
+        pool.setMaximumPoolSize(poolSize);
+        return pool;
+    }
+}
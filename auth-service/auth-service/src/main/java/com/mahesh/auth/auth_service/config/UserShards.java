@@ -0,0 +1,230 @@
+package com.mahesh.auth.auth_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+/**
+ * Hash sharding of per-user rows (tbl_users, tbl_otps).
+ *
+ * An email hashes to one of a fixed number of buckets; the layout assigns
+ * bucket ranges to shards. Shard 0 is spring.datasource.url and also holds
+ * the shared tables (refresh tokens, revocations); further shards are listed
+ * in auth.sharding.urls. Each shard has its own mail outbox. New userIds start with their
+ * bucket, so they stay valid when buckets are moved between shards.
+ *
+ * When sharding is off every method runs its work unchanged.
+ */
+@Component
+public class UserShards {
+
+    public static final int HOME_SHARD = 0;
+
+    // Each shard allocates user ids from its own range (see UserShardRebalancer)
+    public static final long ID_RANGE = 1L << 40;
+
+    private static final int USER_ID_BUCKET_DIGITS = 4;
+
+    private final boolean enabled;
+    private final int shardCount;
+    private final int buckets;
+    private final int[] bucketToShard;
+    private final TransactionTemplate requiresNew;
+
+    public UserShards(
+            @Value("${auth.sharding.enabled:false}") boolean enabled,
+            @Value("${auth.sharding.urls:}") String[] extraShardUrls,
+            @Value("${auth.sharding.buckets:1024}") int buckets,
+            @Value("${auth.sharding.layout:}") String layout,
+            PlatformTransactionManager transactionManager) {
+
+        if (buckets <= 0 || buckets > (1 << (4 * USER_ID_BUCKET_DIGITS))) {
+            throw new IllegalStateException("auth.sharding.buckets must be between 1 and 65536");
+        }
+        this.enabled = enabled;
+        this.shardCount = enabled ? extraShardUrls.length + 1 : 1;
+        this.buckets = buckets;
+        this.bucketToShard = parseLayout(layout, shardCount, buckets);
+
+        if (enabled) {
+            TransactionTemplate template = new TransactionTemplate(transactionManager);
+            template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            this.requiresNew = template;
+        } else {
+            this.requiresNew = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public int bucketOf(String email) {
+        CRC32C crc = new CRC32C();
+        crc.update(normalize(email).getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % buckets);
+    }
+
+    public int shardOf(String email) {
+        return enabled ? bucketToShard[bucketOf(email)] : HOME_SHARD;
+    }
+
+    /** Random userId; with sharding on it is prefixed with the email's bucket. */
+    public String newUserId(String email) {
+        String uuid = UUID.randomUUID().toString();
+        if (!enabled) {
+            return uuid;
+        }
+        return String.format("%0" + USER_ID_BUCKET_DIGITS + "x-%s", bucketOf(email), uuid);
+    }
+
+    /** Shard of a userId from {@link #newUserId}, or -1 for legacy (plain UUID) ids. */
+    public int shardOfUserId(String userId) {
+        if (!enabled || userId == null || userId.length() != USER_ID_BUCKET_DIGITS + 37
+                || userId.charAt(USER_ID_BUCKET_DIGITS) != '-') {
+            return -1;
+        }
+        try {
+            int bucket = Integer.parseInt(userId, 0, USER_ID_BUCKET_DIGITS, 16);
+            return bucket < buckets ? bucketToShard[bucket] : -1;
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Pin the current transaction to the user's shard. Call before the
+     * transaction's first statement; the binding ends with the transaction.
+     */
+    public void bind(String email) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("UserShards.bind requires an active transaction");
+        }
+        Integer previous = ShardRoutingDataSource.currentShard();
+        ShardRoutingDataSource.bind(shardOf(email));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                ShardRoutingDataSource.bind(previous);
+            }
+        });
+    }
+
+    /** Run work (which opens its own transaction, if any) on the user's shard. */
+    public <T> T on(String email, Supplier<T> work) {
+        return enabled ? onShard(shardOf(email), work) : work.get();
+    }
+
+    public <T> T onShard(int shard, Supplier<T> work) {
+        if (!enabled) {
+            return work.get();
+        }
+        Integer previous = ShardRoutingDataSource.currentShard();
+        ShardRoutingDataSource.bind(shard);
+        try {
+            return work.get();
+        } finally {
+            ShardRoutingDataSource.bind(previous);
+        }
+    }
+
+    /** Run work on every shard in turn (e.g. purge jobs); once when sharding is off. */
+    public <T> List<T> onEachShard(Supplier<T> work) {
+        List<T> results = new ArrayList<>();
+        for (int shard = 0; shard < getShardCount(); shard++) {
+            results.add(onShard(shard, work));
+        }
+        return results;
+    }
+
+    /**
+     * Write to the shared tables from a transaction pinned to a user shard.
+     * The work commits separately, on the home shard; without sharding (or
+     * already on the home shard) it simply joins the current transaction.
+     */
+    public void onHomeShard(Runnable work) {
+        Integer current = ShardRoutingDataSource.currentShard();
+        if (!enabled || current == null || current == HOME_SHARD) {
+            work.run();
+            return;
+        }
+        ShardRoutingDataSource.bind(HOME_SHARD);
+        try {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                requiresNew.executeWithoutResult(status -> work.run());
+            } else {
+                work.run();
+            }
+        } finally {
+            ShardRoutingDataSource.bind(current);
+        }
+    }
+
+    static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // "0-255,512-767;256-511;768-1023": shards separated by ';', bucket ranges by ','.
+    // A shard may own no buckets ("0-1023;;"), e.g. before rebalancing onto it.
+    static int[] parseLayout(String layout, int shardCount, int buckets) {
+        int[] bucketToShard = new int[buckets];
+        if (layout == null || layout.isBlank()) {
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                bucketToShard[bucket] = (int) ((long) bucket * shardCount / buckets);
+            }
+            return bucketToShard;
+        }
+
+        String[] shards = layout.split(";", -1);
+        if (shards.length != shardCount) {
+            throw new IllegalStateException("auth.sharding.layout lists " + shards.length
+                    + " shard(s) but " + shardCount + " are configured");
+        }
+        Arrays.fill(bucketToShard, -1);
+        for (int shard = 0; shard < shards.length; shard++) {
+            for (String range : shards[shard].split(",")) {
+                if (range.isBlank()) {
+                    continue;
+                }
+                String[] bounds = range.trim().split("-");
+                int from = Integer.parseInt(bounds[0].trim());
+                int to = bounds.length > 1 ? Integer.parseInt(bounds[1].trim()) : from;
+                if (from < 0 || to >= buckets || from > to) {
+                    throw new IllegalStateException("Invalid bucket range in auth.sharding.layout: " + range);
+                }
+                for (int bucket = from; bucket <= to; bucket++) {
+                    if (bucketToShard[bucket] != -1) {
+                        throw new IllegalStateException("Bucket " + bucket + " is assigned twice in auth.sharding.layout");
+                    }
+                    bucketToShard[bucket] = shard;
+                }
+            }
+        }
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            if (bucketToShard[bucket] == -1) {
+                throw new IllegalStateException("Bucket " + bucket + " is not assigned in auth.sharding.layout");
+            }
+        }
+        return bucketToShard;
+    }
+}
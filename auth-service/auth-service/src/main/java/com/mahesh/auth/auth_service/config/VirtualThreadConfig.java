@@ -0,0 +1,42 @@
+package com.mahesh.auth.auth_service.config;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Support for running with spring.threads.virtual.enabled=true.
+ * Spring Boot moves Tomcat, @Async and @Scheduled onto virtual threads;
+ * this adds an optional cap on concurrent JDBC usage so the unbounded
+ * number of virtual request threads cannot stampede the connection pool.
+ */
+@Configuration
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor jdbcConcurrencyLimiter(
+            @Value("${auth.jdbc.max-concurrency:0}") int maxConcurrency,
+            @Value("${auth.jdbc.acquire-timeout:5s}") Duration acquireTimeout) {
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                // Only real pools: proxies and routers delegate to pools that are wrapped already
+                if (maxConcurrency > 0
+                        && bean instanceof DataSource dataSource
+                        && !(bean instanceof DelegatingDataSource)
+                        && !(bean instanceof AbstractRoutingDataSource)) {
+                    return new ConcurrencyLimitingDataSource(dataSource, maxConcurrency, acquireTimeout);
+                }
+                return bean;
+            }
+        };
+    }
+}
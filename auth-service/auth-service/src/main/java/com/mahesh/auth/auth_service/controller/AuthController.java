@@ -1,14 +1,29 @@
 package com.mahesh.auth.auth_service.controller;
 
+import com.mahesh.auth.auth_service.config.PasswordHashingSaturatedException;
 import com.mahesh.auth.auth_service.io.AuthRequest;
 import com.mahesh.auth.auth_service.io.AuthResponse;
+import com.mahesh.auth.auth_service.io.ProfileResponse;
 import com.mahesh.auth.auth_service.io.ResetPasswordRequest;
+import com.mahesh.auth.auth_service.io.SessionResponse;
 import com.mahesh.auth.auth_service.service.AppUserDetailsService;
+import com.mahesh.auth.auth_service.service.AppUserPrincipal;
+import com.mahesh.auth.auth_service.service.InvalidRefreshTokenException;
+import com.mahesh.auth.auth_service.service.MailQueueFullException;
 import com.mahesh.auth.auth_service.service.ProfileService;
+import com.mahesh.auth.auth_service.service.RateLimitExceededException;
+import com.mahesh.auth.auth_service.service.RateLimitService;
+import com.mahesh.auth.auth_service.service.RefreshTokenService;
+import com.mahesh.auth.auth_service.service.TokenRevocationService;
 import com.mahesh.auth.auth_service.util.JwtUtil;
-import jakarta.servlet.http.HttpServletResponse;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseCookie;
@@ -16,70 +31,131 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.annotation.CurrentSecurityContext;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.HexFormat;
 import java.util.Map;
 
 
+@Slf4j
 @RestController
 @RequiredArgsConstructor
 public class AuthController {
 
+    private static final String ACCESS_COOKIE = "jwt";
+    private static final String REFRESH_COOKIE = "refresh_token";
+
     private final AuthenticationManager authenticationManager;
     private final AppUserDetailsService appUserDetailsService;
     private final JwtUtil jwtUtil;
     private final ProfileService profileService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
+    private final RateLimitService rateLimitService;
+    private final MeterRegistry meterRegistry;
 
     // ================= LOGIN =================
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody AuthRequest request) {
+    public ResponseEntity<?> login(@RequestBody AuthRequest request,
+                                   HttpServletRequest httpRequest) {
 
-        try {
-            authenticate(request.getEmail(), request.getPassword());
+        // Throttle before the password hash, the expensive part of a login
+        rateLimitService.check(RateLimitService.Action.LOGIN,
+                httpRequest.getRemoteAddr(), request.getEmail());
 
-            UserDetails userDetails =
-                    appUserDetailsService.loadUserByUsername(request.getEmail());
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
 
-            String jwtToken = jwtUtil.generateToken(userDetails);
+        try {
+            // The provider already loaded the user: mint the token from its principal
+            Authentication authentication = authenticate(request.getEmail(), request.getPassword());
+            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
 
-            ResponseCookie cookie = ResponseCookie.from("jwt", jwtToken)
-                    .httpOnly(true)
-                    .path("/")
-                    .maxAge(Duration.ofDays(1))
-                    .sameSite("Strict")
-                    .build();
+            String jwtToken = jwtUtil.generateToken(userDetails);
+            String refreshToken = refreshTokenService.issue(userDetails.getUsername());
 
+            outcome = "success";
             return ResponseEntity.ok()
-                    .header(HttpHeaders.SET_COOKIE, cookie.toString())
-                    .body(new AuthResponse(request.getEmail(), jwtToken));
+                    .header(HttpHeaders.SET_COOKIE, accessCookie(jwtToken).toString())
+                    .header(HttpHeaders.SET_COOKIE, refreshCookie(refreshToken).toString())
+                    .body(new AuthResponse(userDetails.getUsername(), jwtToken));
+
+        } catch (PasswordHashingSaturatedException ex) {
+            outcome = "saturated";
+            throw ex;
 
         } catch (BadCredentialsException ex) {
 
+            outcome = "bad_credentials";
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", true, "message", "Email or password is incorrect"));
 
         } catch (DisabledException ex) {
 
+            outcome = "disabled";
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", true, "message", "Account is disabled"));
 
         } catch (Exception ex) {
 
+            log.warn("Authentication failed", ex);
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", true, "message", "Authentication failed"));
+
+        } finally {
+            sample.stop(meterRegistry.timer("auth.login", "outcome", outcome));
         }
     }
 
     // ================= AUTHENTICATE HELPER =================
-    private void authenticate(String email, String password) {
-        System.out.println("AUTH ATTEMPT: " + email);
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(email, password)
-        );
+    private Authentication authenticate(String email, String password) {
+        log.atDebug()
+                .addKeyValue("email", email)
+                .log("Authentication attempt");
+        try {
+            return authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(email, password)
+            );
+        } catch (InternalAuthenticationServiceException ex) {
+            // Providers wrap anything thrown while loading the user, a full hashing pool included
+            if (ex.getCause() instanceof PasswordHashingSaturatedException saturated) {
+                throw saturated;
+            }
+            throw ex;
+        }
+    }
+
+    // ================= REFRESH =================
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(
+            @CookieValue(name = REFRESH_COOKIE, required = false) String refreshToken) {
+
+        if (refreshToken == null || refreshToken.isBlank()) {
+            throw new InvalidRefreshTokenException("Refresh token missing");
+        }
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshToken);
+
+        // Reload so the new access token carries current claims (e.g. verification status)
+        UserDetails userDetails =
+                appUserDetailsService.loadUserByUsername(rotation.email());
+        String jwtToken = jwtUtil.generateToken(userDetails);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, accessCookie(jwtToken).toString())
+                .header(HttpHeaders.SET_COOKIE, refreshCookie(rotation.refreshToken()).toString())
+                .body(new AuthResponse(rotation.email(), jwtToken));
     }
 
     // ================= IS AUTHENTICATED =================
@@ -90,14 +166,80 @@ public class AuthController {
         return ResponseEntity.ok(email != null);
     }
 
+    // ================= SESSION BOOTSTRAP =================
+    /**
+     * Auth status and profile in one call, built from the principal the JWT
+     * filter already resolved (no query). Revalidated with If-None-Match.
+     * Visitors without a session get authenticated=false; a caller holding a
+     * refresh token but no valid access token gets 401, so it refreshes first.
+     */
+    @GetMapping("/session")
+    public ResponseEntity<SessionResponse> session(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @CookieValue(name = REFRESH_COOKIE, required = false) String refreshToken,
+            WebRequest request) {
+
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (userDetails == null) {
+            if (refreshToken != null && !refreshToken.isBlank()) {
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Access token missing or expired");
+            }
+            return ResponseEntity.ok()
+                    .cacheControl(cacheControl)
+                    .body(new SessionResponse(false, null));
+        }
+
+        ProfileResponse profile = userDetails instanceof AppUserPrincipal principal
+                ? ProfileResponse.builder()
+                        .userId(principal.getUserId())
+                        .name(principal.getName())
+                        .email(principal.getUsername())
+                        .isAccountVerified(principal.getIsAccountVerified())
+                        .build()
+                : profileService.getProfile(userDetails.getUsername());
+
+        String etag = sessionEtag(profile);
+
+        // Also matches weak validators and lists of ETags
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .body(new SessionResponse(true, profile));
+    }
+
+    private static String sessionEtag(ProfileResponse profile) {
+        String state = profile.getUserId() + '|' + profile.getName() + '|'
+                + profile.getEmail() + '|' + profile.getIsAccountVerified();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(state.getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
     // ================= SEND RESET OTP =================
     @PostMapping("/send-reset-otp")
-    public ResponseEntity<?> sendResetOtp(@RequestParam String email) {
+    public ResponseEntity<?> sendResetOtp(@RequestParam String email,
+                                          HttpServletRequest httpRequest) {
+
+        rateLimitService.check(RateLimitService.Action.SEND_OTP,
+                httpRequest.getRemoteAddr(), email);
 
         try {
             profileService.sendResetOtp(email);
             return ResponseEntity.ok(Map.of("message", "Reset OTP sent"));
 
+        } catch (MailQueueFullException ex) {
+            throw ex;
         } catch (Exception ex) {
             throw new ResponseStatusException(
                     HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
@@ -107,18 +249,25 @@ public class AuthController {
     // ================= RESET PASSWORD =================
     @PostMapping("/reset-password")
     public ResponseEntity<?> resetPassword(
-            @Valid @RequestBody ResetPasswordRequest request) {
+            @Valid @RequestBody ResetPasswordRequest request,
+            HttpServletRequest httpRequest) {
+
+        rateLimitService.check(RateLimitService.Action.RESET_PASSWORD,
+                httpRequest.getRemoteAddr(), request.getEmail());
 
         try {
             profileService.resetPassword(
                     request.getEmail(),
                     request.getOtp(),
-                    request.getNewPassword()
+                    request.getNewPassword(),
+                    httpRequest.getRemoteAddr()
             );
 
             return ResponseEntity.ok(
                     Map.of("message", "Password reset successfully"));
 
+        } catch (PasswordHashingSaturatedException | RateLimitExceededException ex) {
+            throw ex;
         } catch (RuntimeException ex) {
             return ResponseEntity.badRequest()
                     .body(Map.of("error", true, "message", ex.getMessage()));
@@ -128,12 +277,18 @@ public class AuthController {
     // ================= SEND VERIFY OTP =================
     @PostMapping("/send-otp")
     public ResponseEntity<?> sendOtp(
-            @CurrentSecurityContext(expression = "authentication?.name") String email) {
+            @CurrentSecurityContext(expression = "authentication?.name") String email,
+            HttpServletRequest httpRequest) {
+
+        rateLimitService.check(RateLimitService.Action.SEND_OTP,
+                httpRequest.getRemoteAddr(), email);
 
         try {
             profileService.sendOtp(email);
             return ResponseEntity.ok(Map.of("message", "OTP sent successfully"));
 
+        } catch (MailQueueFullException ex) {
+            throw ex;
         } catch (Exception ex) {
             throw new ResponseStatusException(
                     HttpStatus.BAD_REQUEST, ex.getMessage());
@@ -144,7 +299,8 @@ public class AuthController {
     @PostMapping("/verify-email")
     public ResponseEntity<?> verifyEmail(
             @RequestBody Map<String, Object> request,
-            @CurrentSecurityContext(expression = "authentication?.name") String email) {
+            @CurrentSecurityContext(expression = "authentication?.name") String email,
+            HttpServletRequest httpRequest) {
 
         if (!request.containsKey("otp") || request.get("otp") == null) {
             throw new ResponseStatusException(
@@ -154,30 +310,78 @@ public class AuthController {
         String otp = request.get("otp").toString();
 
         try {
-            profileService.verifyOtp(email, otp);
-            return ResponseEntity.ok(
-                    Map.of("message", "Email verified successfully"));
+            profileService.verifyOtp(email, otp, httpRequest.getRemoteAddr());
 
+        } catch (RateLimitExceededException ex) {
+            throw ex;
         } catch (Exception ex) {
             throw new ResponseStatusException(
                     HttpStatus.BAD_REQUEST, ex.getMessage());
         }
+
+        // New access token, so stateless requests (and /session) see the verified flag now
+        String jwtToken = jwtUtil.generateToken(appUserDetailsService.loadUserByUsername(email));
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, accessCookie(jwtToken).toString())
+                .body(Map.of("message", "Email verified successfully"));
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<?> logout(HttpServletResponse response) {
+    public ResponseEntity<?> logout(
+            @CookieValue(name = ACCESS_COOKIE, required = false) String accessToken,
+            @CookieValue(name = REFRESH_COOKIE, required = false) String refreshToken) {
+
+        // Revoke server-side so neither token can be used again
+        if (accessToken != null && !accessToken.isBlank()) {
+            try {
+                tokenRevocationService.revoke(jwtUtil.verifyToken(accessToken));
+            } catch (JwtException | IllegalArgumentException ex) {
+                // Already invalid or expired → nothing to revoke
+            }
+        }
+        if (refreshToken != null && !refreshToken.isBlank()) {
+            refreshTokenService.revoke(refreshToken);
+        }
+
+        return clearedCookies()
+                .body(Map.of("message", "Logged out successfully"));
+    }
 
-        ResponseCookie cookie = ResponseCookie.from("jwt", "")
+    // ================= SIGN OUT EVERYWHERE =================
+    @PostMapping("/logout-all")
+    public ResponseEntity<?> logoutAll(
+            @CurrentSecurityContext(expression = "authentication?.name") String email) {
+
+        tokenRevocationService.revokeAllForUser(email);
+        refreshTokenService.revokeAll(email);
+
+        return clearedCookies()
+                .body(Map.of("message", "Signed out from all devices"));
+    }
+
+    private ResponseEntity.BodyBuilder clearedCookies() {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, cookie(ACCESS_COOKIE, "", Duration.ZERO).toString())
+                .header(HttpHeaders.SET_COOKIE, cookie(REFRESH_COOKIE, "", Duration.ZERO).toString());
+    }
+
+    // ================= COOKIE HELPERS =================
+    private ResponseCookie accessCookie(String token) {
+        return cookie(ACCESS_COOKIE, token, jwtUtil.getAccessTokenTtl());
+    }
+
+    private ResponseCookie refreshCookie(String token) {
+        return cookie(REFRESH_COOKIE, token, refreshTokenService.getTtl());
+    }
+
+    private static ResponseCookie cookie(String name, String value, Duration maxAge) {
+        return ResponseCookie.from(name, value)
                 .httpOnly(true)
                 .secure(false)
                 .path("/")
-                .maxAge(0)
+                .maxAge(maxAge)
                 .sameSite("Strict")
                 .build();
-
-        return ResponseEntity.ok()
-                .header(HttpHeaders.SET_COOKIE, cookie.toString())
-                .body(Map.of("message", "Logged out successfully"));
     }
 
 
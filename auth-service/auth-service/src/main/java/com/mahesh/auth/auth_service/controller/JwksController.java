@@ -0,0 +1,50 @@
+package com.mahesh.auth.auth_service.controller;
+
+import com.mahesh.auth.auth_service.util.SigningKeyRing;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Public verification keys, so other services can validate our tokens
+ * locally instead of calling this service.
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+
+    private final SigningKeyRing signingKeyRing;
+
+    // Keep below jwt.signing.activation-delay so clients see a new key before it signs
+    @Value("${jwt.jwks.max-age:5m}")
+    private Duration maxAge;
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, List<Map<String, Object>>>> jwks(WebRequest request) {
+
+        String etag = signingKeyRing.getJwksEtag();
+        CacheControl cacheControl = CacheControl.maxAge(maxAge).cachePublic();
+
+        // Matches weak validators and lists of ETags, not just the exact header
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .body(Map.of("keys", signingKeyRing.publicJwks()));
+    }
+}
@@ -2,27 +2,28 @@ package com.mahesh.auth.auth_service.controller;
 
 import com.mahesh.auth.auth_service.io.ProfileRequest;
 import com.mahesh.auth.auth_service.io.ProfileResponse;
-import com.mahesh.auth.auth_service.service.EmailService;
+import com.mahesh.auth.auth_service.io.VersionedProfile;
 import com.mahesh.auth.auth_service.service.ProfileService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.CurrentSecurityContext;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequiredArgsConstructor
 public class ProfileController {
 
     private final ProfileService profileService;
-    private final EmailService emailService;
 
     @PostMapping("/register")
     @ResponseStatus(HttpStatus.CREATED)
     public ProfileResponse register(@Valid @RequestBody ProfileRequest request) {
-        ProfileResponse response = profileService.createProfile(request);
-        emailService.sendWelcomeEmail(response.getEmail(), response.getName());
-        return response;
+        return profileService.createProfile(request);
     }
 
     @GetMapping("/test")
@@ -30,9 +31,36 @@ public class ProfileController {
         return "Auth is working";
     }
 
+    /**
+     * ETag is the row's updatedAt. A matching If-None-Match (weak or strong,
+     * single or a list) is answered with 304 after a single-column version
+     * query, without loading or serializing the profile.
+     */
     @GetMapping("/profile")
-    public ProfileResponse getProfile(@CurrentSecurityContext(expression = "authentication?.name") String email){
-        return profileService.getProfile(email);
+    public ResponseEntity<ProfileResponse> getProfile(
+            @CurrentSecurityContext(expression = "authentication?.name") String email,
+            WebRequest request) {
 
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            String etag = etag(profileService.getProfileVersion(email));
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag)
+                        .cacheControl(cacheControl)
+                        .build();
+            }
+        }
+
+        VersionedProfile profile = profileService.getVersionedProfile(email);
+        return ResponseEntity.ok()
+                .eTag(etag(profile.getVersion()))
+                .cacheControl(cacheControl)
+                .body(profile.getProfile());
+    }
+
+    private static String etag(String version) {
+        return "\"" + version + "\"";
     }
 }
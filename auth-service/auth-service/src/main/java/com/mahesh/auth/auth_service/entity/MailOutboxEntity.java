@@ -0,0 +1,51 @@
+package com.mahesh.auth.auth_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.sql.Timestamp;
+
+@Entity
+@Table(
+        name = "tbl_mail_outbox",
+        indexes = @Index(name = "idx_mail_outbox_claim", columnList = "status, availableAt")
+)
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class MailOutboxEntity {
+
+    public enum Status { PENDING, PROCESSING, SENT, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    private String sender;
+
+    private String subject;
+
+    @Column(length = 4000)
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    private Integer attempts;
+
+    // Epoch millis; for PROCESSING rows this is the end of the claim lease
+    private Long availableAt;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private Timestamp createdAt;
+}
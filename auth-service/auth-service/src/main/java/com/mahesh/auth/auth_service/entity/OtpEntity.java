@@ -0,0 +1,32 @@
+package com.mahesh.auth.auth_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One pending OTP per email and purpose; id is "PURPOSE:email".
+ * Kept narrow so issuing and checking OTPs never touches tbl_users.
+ */
+@Entity
+@Table(
+        name = "tbl_otps",
+        indexes = @Index(name = "idx_otps_expires", columnList = "expiresAt")
+)
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OtpEntity {
+
+    @Id
+    private String id;
+
+    @Column(nullable = false, length = 64)
+    private String otpHash;
+
+    @Column(nullable = false)
+    private Long expiresAt;
+}
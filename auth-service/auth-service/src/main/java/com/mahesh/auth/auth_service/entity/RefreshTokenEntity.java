@@ -0,0 +1,52 @@
+package com.mahesh.auth.auth_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.sql.Timestamp;
+
+@Entity
+@Table(
+        name = "tbl_refresh_tokens",
+        indexes = {
+                @Index(name = "idx_refresh_tokens_family", columnList = "familyId"),
+                @Index(name = "idx_refresh_tokens_email", columnList = "email")
+        }
+)
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RefreshTokenEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // SHA-256 of the token; the raw value only ever lives in the client cookie
+    @Column(unique = true, nullable = false, length = 64)
+    private String tokenHash;
+
+    // All tokens rotated from the same login share a family
+    @Column(nullable = false, length = 36)
+    private String familyId;
+
+    @Column(nullable = false)
+    private String email;
+
+    private Long expiresAt;
+
+    @Builder.Default
+    private Boolean revoked = false;
+
+    // Epoch millis when this token was exchanged for its successor
+    private Long rotatedAt;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private Timestamp createdAt;
+}
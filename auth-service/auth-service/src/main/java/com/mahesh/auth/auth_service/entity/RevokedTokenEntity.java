@@ -0,0 +1,42 @@
+package com.mahesh.auth.auth_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A revoked access token (jti set) or a user-wide revocation (email set, jti
+ * null) that invalidates every token issued to that user before revokedAt.
+ * Rows are useless once expiresAt has passed and are pruned.
+ */
+@Entity
+@Table(
+        name = "tbl_revoked_tokens",
+        indexes = {
+                @Index(name = "idx_revoked_tokens_expires", columnList = "expiresAt"),
+                @Index(name = "idx_revoked_tokens_revoked_at", columnList = "revokedAt")
+        }
+)
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RevokedTokenEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(unique = true, length = 64)
+    private String jti;
+
+    private String email;
+
+    @Column(nullable = false)
+    private Long revokedAt;
+
+    @Column(nullable = false)
+    private Long expiresAt;
+}
@@ -11,35 +11,45 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.sql.Timestamp;
 
 @Entity
-@Table(name = "tbl_users")
+@Table(
+        name = "tbl_users",
+        uniqueConstraints = {
+                @UniqueConstraint(name = UserEntity.EMAIL_CONSTRAINT, columnNames = "email"),
+                @UniqueConstraint(name = UserEntity.USER_ID_CONSTRAINT, columnNames = "userId")
+        }
+)
 @Data
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 public class UserEntity {
 
+    public static final String EMAIL_CONSTRAINT = "uk_users_email";
+    public static final String USER_ID_CONSTRAINT = "uk_users_user_id";
+
+    // Pooled sequence (a table on MySQL): ids are known before insert, so inserts can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq")
+    @SequenceGenerator(name = "user_seq", sequenceName = "tbl_users_seq", allocationSize = 50)
     private Long id;
-    @Column(unique = true)
+
     private String userId;
 
     private String name;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String email;
 
     private String password;
 
-    private String verifyOtp;
-
     private Boolean isAccountVerified = false;
 
-    private Long verifyOtpExpireAt;
+    // Failed OTP guesses; only written when auth.otp.lockout.persist=true
+    private Integer otpFailedAttempts;
 
-    private String resetOtp;
+    private Integer otpLockouts;
 
-    private Long resetOtpExpiredAt;
+    private Long otpLockedUntil;
 
     @CreationTimestamp
     @Column(updatable = false)
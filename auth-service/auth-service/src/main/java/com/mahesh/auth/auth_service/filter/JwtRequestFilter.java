@@ -1,27 +1,47 @@
 package com.mahesh.auth.auth_service.filter;
 
 import com.mahesh.auth.auth_service.service.AppUserDetailsService;
+import com.mahesh.auth.auth_service.service.AppUserPrincipal;
+import com.mahesh.auth.auth_service.service.TokenRevocationService;
 import com.mahesh.auth.auth_service.util.JwtUtil;
+import com.mahesh.auth.auth_service.util.VerifiedToken;
+import com.mahesh.auth.auth_service.util.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Component
 @RequiredArgsConstructor
 public class JwtRequestFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocationService tokenRevocationService;
     private final AppUserDetailsService userDetailsService;
+    private final MeterRegistry meterRegistry;
+
+    // Build the principal from token claims instead of loading the user per request
+    @Value("${jwt.stateless.enabled:false}")
+    private boolean statelessEnabled;
 
     /**
      * Skip JWT filter for public endpoints
@@ -34,7 +54,10 @@ public class JwtRequestFilter extends OncePerRequestFilter {
                 || path.equals("/register")
                 || path.equals("/send-reset-otp")
                 || path.equals("/reset-password")
-                || path.equals("/logout");
+                || path.equals("/logout")
+                || path.equals("/refresh")
+                || path.equals("/.well-known/jwks.json")
+                || path.startsWith("/actuator/");
     }
 
     @Override
@@ -45,7 +68,7 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
 
         String jwtToken = null;
-        String email = null;
+        VerifiedToken verifiedToken = null;
 
         // 1️⃣ Extract JWT from HTTP-only cookie
         Cookie[] cookies = request.getCookies();
@@ -58,24 +81,33 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             }
         }
 
-        // 2️⃣ Extract email from token
+        // 2️⃣ Verify token once (signature + expiry), reusing a cached result if present
         if (jwtToken != null) {
+            long start = System.nanoTime();
+            String result = "valid";
             try {
-                email = jwtUtil.extractEmail(jwtToken);
-            } catch (Exception ex) {
+                verifiedToken = verifiedTokenCache.get(jwtToken, jwtUtil::verifyToken);
+                if (tokenRevocationService.isRevoked(verifiedToken)) {
+                    verifiedToken = null;
+                    result = "revoked";
+                }
+            } catch (JwtException | IllegalArgumentException ex) {
                 // Invalid or expired token → ignore
+                result = "invalid";
             }
+            meterRegistry.timer("auth.token.verify", "result", result)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
 
         // 3️⃣ Authenticate user if not already authenticated
-        if (email != null &&
+        if (verifiedToken != null &&
+                verifiedToken.getEmail() != null &&
                 SecurityContextHolder.getContext().getAuthentication() == null) {
 
-            UserDetails userDetails =
-                    userDetailsService.loadUserByUsername(email);
+            UserDetails userDetails = resolveUser(verifiedToken);
 
-            // 4️⃣ Validate token
-            if (jwtUtil.validateToken(jwtToken, userDetails.getUsername())) {
+            // 4️⃣ Token subject must match the loaded user
+            if (verifiedToken.getEmail().equals(userDetails.getUsername())) {
 
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(
@@ -93,4 +125,36 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         // 6️⃣ Continue filter chain
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * In stateless mode the principal is rebuilt from the verified claims.
+     * The DB is only hit when the token lacks the claims (e.g. issued before
+     * they were added) or when stateless mode is off.
+     */
+    private UserDetails resolveUser(VerifiedToken verifiedToken) {
+        Claims claims = verifiedToken.getClaims();
+        String userId = claims.get(JwtUtil.CLAIM_USER_ID, String.class);
+        String name = claims.get(JwtUtil.CLAIM_NAME, String.class);
+
+        if (!statelessEnabled || userId == null || name == null) {
+            return userDetailsService.loadUserByUsername(verifiedToken.getEmail());
+        }
+
+        List<SimpleGrantedAuthority> authorities = new ArrayList<>();
+        Object roles = claims.get(JwtUtil.CLAIM_ROLES);
+        if (roles instanceof Collection<?> roleList) {
+            for (Object role : roleList) {
+                authorities.add(new SimpleGrantedAuthority(role.toString()));
+            }
+        }
+
+        return new AppUserPrincipal(
+                verifiedToken.getEmail(),
+                "",
+                authorities,
+                userId,
+                name,
+                claims.get(JwtUtil.CLAIM_VERIFIED, Boolean.class)
+        );
+    }
 }
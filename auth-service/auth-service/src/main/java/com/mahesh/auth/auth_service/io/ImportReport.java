@@ -0,0 +1,25 @@
+package com.mahesh.auth.auth_service.io;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class ImportReport {
+
+    private long total;
+    private long imported;
+    private long failed;
+    private long elapsedMillis;
+    // Capped at auth.import.max-reported-errors
+    private List<RowError> errors;
+
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? imported : imported * 1000.0 / elapsedMillis;
+    }
+
+    public record RowError(long line, String email, String message) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.mahesh.auth.auth_service.io;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SessionResponse {
+
+    private boolean authenticated;
+    private ProfileResponse profile;
+}
@@ -0,0 +1,13 @@
+package com.mahesh.auth.auth_service.io;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class VersionedProfile {
+
+    private ProfileResponse profile;
+    // Opaque; used as the /profile ETag
+    private String version;
+}
@@ -0,0 +1,24 @@
+package com.mahesh.auth.auth_service.repository;
+
+import com.mahesh.auth.auth_service.entity.MailOutboxEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+public interface MailOutboxRepository extends JpaRepository<MailOutboxEntity, Long> {
+
+    // Lock a batch of due rows; rows locked by another instance are skipped
+    @Query(value = "SELECT * FROM tbl_mail_outbox " +
+            "WHERE status IN ('PENDING', 'PROCESSING') AND available_at <= :now " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<MailOutboxEntity> lockDueBatch(long now, int limit);
+
+    @Modifying
+    @Query("DELETE FROM MailOutboxEntity m WHERE m.status IN :statuses AND m.createdAt < :before")
+    int deleteByStatusInBefore(Collection<MailOutboxEntity.Status> statuses, Timestamp before);
+}
@@ -0,0 +1,21 @@
+package com.mahesh.auth.auth_service.repository;
+
+import com.mahesh.auth.auth_service.entity.OtpEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface OtpRepository extends JpaRepository<OtpEntity, String> {
+
+    // Consume: only the caller that deletes the row gets a valid OTP
+    @Modifying
+    @Query("DELETE FROM OtpEntity o WHERE o.id = :id AND o.otpHash = :otpHash")
+    int deleteByIdAndOtpHash(String id, String otpHash);
+
+    // Own transaction so the purge can run it once per shard
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OtpEntity o WHERE o.expiresAt < :now")
+    int deleteExpired(long now);
+}
@@ -0,0 +1,14 @@
+package com.mahesh.auth.auth_service.repository;
+
+import java.sql.Timestamp;
+
+// Cheap validator for a user's profile: changes whenever updatedAt does
+public record ProfileVersion(String userId, Timestamp updatedAt) {
+
+    public String tag() {
+        if (updatedAt == null) {
+            return userId + "-0";
+        }
+        return userId + '-' + Long.toHexString(updatedAt.getTime()) + '-' + updatedAt.getNanos();
+    }
+}
@@ -0,0 +1,32 @@
+package com.mahesh.auth.auth_service.repository;
+
+import com.mahesh.auth.auth_service.entity.RefreshTokenEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshTokenEntity, Long> {
+
+    Optional<RefreshTokenEntity> findByTokenHash(String tokenHash);
+
+    // Single-use claim: concurrent refreshes of one token queue on the row lock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM RefreshTokenEntity r WHERE r.tokenHash = :tokenHash")
+    Optional<RefreshTokenEntity> lockByTokenHash(String tokenHash);
+
+    @Modifying
+    @Query("UPDATE RefreshTokenEntity r SET r.revoked = true WHERE r.familyId = :familyId")
+    int revokeFamily(String familyId);
+
+    @Modifying
+    @Query("UPDATE RefreshTokenEntity r SET r.revoked = true WHERE r.email = :email AND r.revoked = false")
+    int revokeAllForEmail(String email);
+
+    @Modifying
+    @Query("DELETE FROM RefreshTokenEntity r WHERE r.expiresAt < :now")
+    int deleteExpired(long now);
+}
@@ -0,0 +1,21 @@
+package com.mahesh.auth.auth_service.repository;
+
+import com.mahesh.auth.auth_service.entity.RevokedTokenEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedTokenEntity, Long> {
+
+    // Incremental sync: unexpired rows revoked at or after the given time, by any instance
+    Slice<RevokedTokenEntity> findByRevokedAtGreaterThanEqualAndExpiresAtGreaterThan(
+            Long revokedAt, Long now, Pageable pageable);
+
+    boolean existsByJti(String jti);
+
+    @Modifying
+    @Query("DELETE FROM RevokedTokenEntity r WHERE r.expiresAt < :now")
+    int deleteExpired(long now);
+}
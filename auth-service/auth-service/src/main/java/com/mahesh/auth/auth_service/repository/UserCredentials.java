@@ -0,0 +1,6 @@
+package com.mahesh.auth.auth_service.repository;
+
+// What authentication (and the principal behind /session) needs from tbl_users
+public record UserCredentials(String userId, String name, String email, String password,
+                              Boolean isAccountVerified) {
+}
@@ -0,0 +1,6 @@
+package com.mahesh.auth.auth_service.repository;
+
+// Columns read when issuing or checking an OTP
+public record UserOtpState(String email, Boolean isAccountVerified,
+                           Integer otpFailedAttempts, Integer otpLockouts, Long otpLockedUntil) {
+}
@@ -0,0 +1,8 @@
+package com.mahesh.auth.auth_service.repository;
+
+import java.sql.Timestamp;
+
+// Public profile columns plus updatedAt for the ETag
+public record UserProfileView(String userId, String name, String email, Boolean isAccountVerified,
+                              Timestamp updatedAt) {
+}
@@ -2,13 +2,64 @@ package com.mahesh.auth.auth_service.repository;
 
 import com.mahesh.auth.auth_service.entity.UserEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<UserEntity, Long> {
 
-    Optional<UserEntity> findByEmail(String email);
     Boolean existsByEmail(String email);
 
+    // ---- Projections: select only the columns each use case needs ----
 
+    // Login reads happen outside a service transaction; read-only so they can use a replica
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.mahesh.auth.auth_service.repository.UserCredentials("
+            + "u.userId, u.name, u.email, u.password, u.isAccountVerified) "
+            + "FROM UserEntity u WHERE u.email = :email")
+    Optional<UserCredentials> findCredentialsByEmail(String email);
+
+    @Query("SELECT new com.mahesh.auth.auth_service.repository.UserProfileView("
+            + "u.userId, u.name, u.email, u.isAccountVerified, u.updatedAt) "
+            + "FROM UserEntity u WHERE u.email = :email")
+    Optional<UserProfileView> findProfileByEmail(String email);
+
+    @Query("SELECT new com.mahesh.auth.auth_service.repository.UserOtpState("
+            + "u.email, u.isAccountVerified, u.otpFailedAttempts, u.otpLockouts, u.otpLockedUntil) "
+            + "FROM UserEntity u WHERE u.email = :email")
+    Optional<UserOtpState> findOtpStateByEmail(String email);
+
+    // Conditional GET: compare versions without reading the profile
+    @Query("SELECT new com.mahesh.auth.auth_service.repository.ProfileVersion(u.userId, u.updatedAt) "
+            + "FROM UserEntity u WHERE u.email = :email")
+    Optional<ProfileVersion> findProfileVersionByEmail(String email);
+
+    @Query("SELECT u.userId FROM UserEntity u WHERE u.email = :email")
+    Optional<String> findUserIdByEmail(String email);
+
+    // Bulk import: which of these emails are already registered
+    @Query("SELECT u.email FROM UserEntity u WHERE u.email IN :emails")
+    List<String> findExistingEmails(Collection<String> emails);
+
+    // ---- Targeted updates: no entity load or dirty checking (callers must be transactional) ----
+
+    @Modifying
+    @Query("UPDATE UserEntity u SET u.password = :password, u.updatedAt = CURRENT_TIMESTAMP "
+            + "WHERE u.email = :email")
+    int updatePassword(String email, String password);
+
+    @Modifying
+    @Query("UPDATE UserEntity u SET u.isAccountVerified = true, u.updatedAt = CURRENT_TIMESTAMP "
+            + "WHERE u.email = :email")
+    int markAccountVerified(String email);
+
+    // Lockout bookkeeping is not a profile change, so updatedAt is left alone
+    @Modifying
+    @Query("UPDATE UserEntity u SET u.otpFailedAttempts = :failures, u.otpLockouts = :lockouts, "
+            + "u.otpLockedUntil = :lockedUntil WHERE u.email = :email")
+    int updateOtpAttempts(String email, Integer failures, Integer lockouts, Long lockedUntil);
 }
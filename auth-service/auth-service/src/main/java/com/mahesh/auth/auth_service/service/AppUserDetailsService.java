@@ -1,38 +1,85 @@
 package com.mahesh.auth.auth_service.service;
 
-import com.mahesh.auth.auth_service.entity.UserEntity;
+import com.mahesh.auth.auth_service.config.ReadYourWritesTracker;
+import com.mahesh.auth.auth_service.config.UserShards;
+import com.mahesh.auth.auth_service.repository.UserCredentials;
 import com.mahesh.auth.auth_service.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 
 import java.util.ArrayList;
 
 @Service
 @RequiredArgsConstructor
-public class AppUserDetailsService implements UserDetailsService {
+public class AppUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
+    private final ReadYourWritesTracker readYourWrites;
+    private final UserShards userShards;
 
     @Override
     public UserDetails loadUserByUsername(String email)
             throws UsernameNotFoundException {
 
-        UserEntity existingUser = userRepository.findByEmail(email)
+        return userDetailsCache.get(email, this::loadFromDatabase);
+    }
+
+    /**
+     * Called by DaoAuthenticationProvider after a successful login when the
+     * stored hash should be upgraded (different algorithm or lower cost).
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+
+        userShards.bind(user.getUsername());
+
+        if (userRepository.updatePassword(user.getUsername(), newPassword) == 0) {
+            throw new UsernameNotFoundException(
+                    "User not found with email: " + user.getUsername());
+        }
+        userDetailsCache.invalidate(user.getUsername());
+        readYourWrites.wrote(user.getUsername());
+
+        AppUserPrincipal existingUser = user instanceof AppUserPrincipal principal
+                ? principal
+                : loadFromDatabase(user.getUsername());
+
+        return new AppUserPrincipal(
+                existingUser.getUsername(),
+                newPassword,
+                user.getAuthorities(),
+                existingUser.getUserId(),
+                existingUser.getName(),
+                existingUser.getIsAccountVerified()
+        );
+    }
+
+    private AppUserPrincipal loadFromDatabase(String email) {
+
+        // Read-only repository transaction (replica when routing is enabled), only on cache misses
+        UserCredentials credentials = userShards.on(email,
+                () -> readYourWrites.readFor(email, () -> userRepository.findCredentialsByEmail(email)))
                 .orElseThrow(() ->
                         new UsernameNotFoundException(
                                 "User not found with email: " + email
                         )
                 );
 
-        return new User(
-                existingUser.getEmail(),
-                existingUser.getPassword(),
-                new ArrayList<>()
+        return new AppUserPrincipal(
+                credentials.email(),
+                credentials.password(),
+                new ArrayList<>(),
+                credentials.userId(),
+                credentials.name(),
+                credentials.isAccountVerified()
         );
     }
 }
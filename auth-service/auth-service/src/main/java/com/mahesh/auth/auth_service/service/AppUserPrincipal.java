@@ -0,0 +1,32 @@
+package com.mahesh.auth.auth_service.service;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Spring Security user that also carries the public user id, display name
+ * and verification flag, so they can be embedded in (and restored from) the
+ * JWT and served by /session without another query.
+ */
+@Getter
+public class AppUserPrincipal extends User {
+
+    private final String userId;
+    private final String name;
+    private final Boolean isAccountVerified;
+
+    public AppUserPrincipal(String email,
+                            String password,
+                            Collection<? extends GrantedAuthority> authorities,
+                            String userId,
+                            String name,
+                            Boolean isAccountVerified) {
+        super(email, password, authorities);
+        this.userId = userId;
+        this.name = name;
+        this.isAccountVerified = isAccountVerified;
+    }
+}
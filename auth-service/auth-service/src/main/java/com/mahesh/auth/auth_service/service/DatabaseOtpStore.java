@@ -0,0 +1,73 @@
+package com.mahesh.auth.auth_service.service;
+
+import com.mahesh.auth.auth_service.config.UserShards;
+import com.mahesh.auth.auth_service.entity.OtpEntity;
+import com.mahesh.auth.auth_service.repository.OtpRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+
+/**
+ * OTPs in the narrow tbl_otps table, shared by all instances (and sharded
+ * with their user when auth.sharding.enabled=true).
+ * Expired rows are removed in the background using the expiresAt index.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "auth.otp.store", havingValue = "database", matchIfMissing = true)
+public class DatabaseOtpStore implements OtpStore {
+
+    private final OtpRepository otpRepository;
+    private final UserShards userShards;
+    private final OtpHasher otpHasher;
+
+    @Override
+    public void put(String email, Purpose purpose, String otp, Duration ttl) {
+        otpRepository.save(OtpEntity.builder()
+                .id(id(email, purpose))
+                .otpHash(otpHasher.hash(email, purpose, otp))
+                .expiresAt(System.currentTimeMillis() + ttl.toMillis())
+                .build());
+    }
+
+    @Override
+    @Transactional
+    public Result verify(String email, Purpose purpose, String otp) {
+        String id = id(email, purpose);
+        OtpEntity existing = otpRepository.findById(id).orElse(null);
+        if (existing == null) {
+            return Result.MISSING;
+        }
+        String otpHash = otpHasher.hash(email, purpose, otp);
+        if (!OtpStore.matches(existing.getOtpHash(), otpHash)) {
+            return Result.INVALID;
+        }
+        if (existing.getExpiresAt() < System.currentTimeMillis()) {
+            return Result.EXPIRED;
+        }
+        return otpRepository.deleteByIdAndOtpHash(id, otpHash) == 1 ? Result.VALID : Result.INVALID;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${auth.otp.purge-interval:PT5M}")
+    public int purgeExpired() {
+        long now = System.currentTimeMillis();
+        // OTPs live on their user's shard; one delete (and transaction) per shard
+        int removed = userShards.onEachShard(() -> otpRepository.deleteExpired(now))
+                .stream().mapToInt(Integer::intValue).sum();
+        if (removed > 0) {
+            log.debug("Purged {} expired OTP(s)", removed);
+        }
+        return removed;
+    }
+
+    private static String id(String email, Purpose purpose) {
+        return purpose.name() + ':' + email;
+    }
+}
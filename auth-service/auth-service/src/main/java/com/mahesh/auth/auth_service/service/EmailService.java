@@ -1,16 +1,24 @@
 package com.mahesh.auth.auth_service.service;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class EmailService {
 
-    private final JavaMailSender mailSender;
+    private final MailDispatcher mailDispatcher;
+    private final MailOutboxService mailOutboxService;
+
+    // Store emails in the outbox table (same transaction as the caller) instead of queueing in memory
+    @Value("${auth.mail.outbox.enabled:false}")
+    private boolean outboxEnabled;
 
     @Value("${spring.mail.properties.mail.smtp.from}")
     private String fromEmail;
@@ -30,7 +38,7 @@ public class EmailService {
                         "Auth Service Team"
         );
 
-        mailSender.send(message); // ✅ IMPORTANT
+        deliverAfterCommit(message);
     }
 
     public void sendResetOtpEmail(String toEmail, String otp) {
@@ -50,7 +58,7 @@ public class EmailService {
                         "Auth Service Team"
         );
 
-        mailSender.send(message);
+        deliver(message);
     }
 
     public void sendOtpEmail(String toEmail, String otp) {
@@ -64,8 +72,43 @@ public class EmailService {
                 "Your OTP is " + otp + ". Verify your account using this OTP."
         );
 
-        mailSender.send(message);
+        deliver(message);
     }
 
+    /**
+     * Best effort, once the caller's transaction has committed: a failed
+     * signup never sends mail, and a full queue never fails the signup.
+     * The outbox row is still written in the caller's transaction.
+     */
+    private void deliverAfterCommit(SimpleMailMessage message) {
+        if (outboxEnabled) {
+            deliver(message);
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submitQuietly(message);
+                }
+            });
+        } else {
+            submitQuietly(message);
+        }
+    }
 
+    private void submitQuietly(SimpleMailMessage message) {
+        try {
+            mailDispatcher.submit(message);
+        } catch (MailQueueFullException ex) {
+            log.warn("Mail queue full, dropped '{}' to {}", message.getSubject(), String.join(",", message.getTo()));
+        }
+    }
+
+    private void deliver(SimpleMailMessage message) {
+        if (outboxEnabled) {
+            // Every shard has an outbox: the row commits or rolls back with the user change
+            mailOutboxService.enqueue(message);
+        } else {
+            mailDispatcher.submit(message);
+        }
+    }
 }
@@ -0,0 +1,117 @@
+package com.mahesh.auth.auth_service.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * OTPs in process memory (single instance, lost on restart).
+ * Expiry uses a hashed timer wheel: each OTP is queued in the slot for its
+ * expiry tick, and a scheduled task drains only the slots that have come
+ * due, so purging never scans the whole map. Reads also check expiry, so
+ * the wheel only reclaims memory.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.otp.store", havingValue = "memory")
+public class InMemoryOtpStore implements OtpStore {
+
+    private record Entry(String key, String hash, long expiresAt) {
+    }
+
+    private final ConcurrentHashMap<String, Entry> otps = new ConcurrentHashMap<>();
+    private final Queue<Entry>[] wheel;
+    private final long tickMillis;
+    private final OtpHasher otpHasher;
+    private long lastTick;
+
+    @SuppressWarnings("unchecked")
+    public InMemoryOtpStore(@Value("${auth.otp.memory.tick:PT1S}") Duration tick,
+                            @Value("${auth.otp.memory.wheel-size:1024}") int wheelSize,
+                            OtpHasher otpHasher) {
+        this.otpHasher = otpHasher;
+        this.tickMillis = Math.max(1, tick.toMillis());
+        this.wheel = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.lastTick = System.currentTimeMillis() / tickMillis;
+    }
+
+    @Override
+    public void put(String email, Purpose purpose, String otp, Duration ttl) {
+        String key = key(email, purpose);
+        Entry entry = new Entry(key, otpHasher.hash(email, purpose, otp),
+                System.currentTimeMillis() + ttl.toMillis());
+        otps.put(key, entry);
+        schedule(entry);
+    }
+
+    @Override
+    public Result verify(String email, Purpose purpose, String otp) {
+        String key = key(email, purpose);
+        Entry entry = otps.get(key);
+        if (entry == null) {
+            return Result.MISSING;
+        }
+        if (!OtpStore.matches(entry.hash(), otpHasher.hash(email, purpose, otp))) {
+            return Result.INVALID;
+        }
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            otps.remove(key, entry);
+            return Result.EXPIRED;
+        }
+        // Only one concurrent caller can consume the OTP
+        return otps.remove(key, entry) ? Result.VALID : Result.INVALID;
+    }
+
+    /** Advance the wheel to the current tick, dropping OTPs that have expired. */
+    @Override
+    @Scheduled(fixedDelayString = "${auth.otp.memory.tick:PT1S}")
+    public synchronized int purgeExpired() {
+        long now = System.currentTimeMillis();
+        long currentTick = now / tickMillis;
+        // A full turn covers every slot
+        long from = Math.max(lastTick, currentTick - wheel.length + 1);
+        int removed = 0;
+
+        for (long tick = from; tick <= currentTick; tick++) {
+            Queue<Entry> slot = wheel[(int) (tick % wheel.length)];
+            int pending = slot.size();
+            for (int i = 0; i < pending; i++) {
+                Entry entry = slot.poll();
+                if (entry == null) {
+                    break;
+                }
+                if (entry.expiresAt() <= now) {
+                    if (otps.remove(entry.key(), entry)) {
+                        removed++;
+                    }
+                } else if (otps.get(entry.key()) == entry) {
+                    // Expires in a later turn of the wheel
+                    slot.add(entry);
+                }
+            }
+        }
+        lastTick = currentTick;
+        return removed;
+    }
+
+    public int size() {
+        return otps.size();
+    }
+
+    private void schedule(Entry entry) {
+        long tick = Math.ceilDiv(entry.expiresAt(), tickMillis);
+        wheel[(int) (tick % wheel.length)].add(entry);
+    }
+
+    private static String key(String email, Purpose purpose) {
+        return purpose.name() + ':' + email;
+    }
+}
@@ -0,0 +1,54 @@
+package com.mahesh.auth.auth_service.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token buckets held in process memory.
+ * Each bucket is a single AtomicLong holding the "theoretical arrival time"
+ * of the next request (GCRA), so a check is one map lookup and one CAS;
+ * contention is spread across ConcurrentHashMap bins.
+ * Sharing one instance between several RateLimitService instances simulates
+ * a cluster-wide store.
+ */
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    @Override
+    public long tryAcquire(String key, long emissionIntervalMicros, long burstToleranceMicros, long nowMicros) {
+        AtomicLong tat = buckets.get(key);
+        if (tat == null) {
+            tat = buckets.computeIfAbsent(key, k -> new AtomicLong(nowMicros));
+        }
+
+        while (true) {
+            long current = tat.get();
+            long allowAt = current - burstToleranceMicros;
+            if (nowMicros < allowAt) {
+                return allowAt - nowMicros;
+            }
+            long next = Math.max(current, nowMicros) + emissionIntervalMicros;
+            if (tat.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    @Override
+    public void release(String key, long emissionIntervalMicros) {
+        AtomicLong tat = buckets.get(key);
+        if (tat != null) {
+            tat.addAndGet(-emissionIntervalMicros);
+        }
+    }
+
+    @Override
+    public void purge(long nowMicros) {
+        buckets.values().removeIf(tat -> tat.get() <= nowMicros);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,9 @@
+package com.mahesh.auth.auth_service.service;
+
+// Wrong OTP guess; transactions must not roll back the recorded failed attempt
+public class InvalidOtpException extends RuntimeException {
+
+    public InvalidOtpException() {
+        super("Invalid OTP");
+    }
+}
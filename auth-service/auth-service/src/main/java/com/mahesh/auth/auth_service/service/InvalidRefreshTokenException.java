@@ -0,0 +1,11 @@
+package com.mahesh.auth.auth_service.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class InvalidRefreshTokenException extends ResponseStatusException {
+
+    public InvalidRefreshTokenException(String reason) {
+        super(HttpStatus.UNAUTHORIZED, reason);
+    }
+}
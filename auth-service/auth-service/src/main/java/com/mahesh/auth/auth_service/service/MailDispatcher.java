@@ -0,0 +1,246 @@
+package com.mahesh.auth.auth_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Outbound mail pipeline.
+ * Callers enqueue a message and return immediately; worker threads drain the
+ * queue in batches and send each batch over a single SMTP connection
+ * ({@link JavaMailSender#send(SimpleMailMessage...)}), retrying failed
+ * messages with exponential backoff.
+ */
+@Slf4j
+@Component
+public class MailDispatcher implements DisposableBean {
+
+    private final JavaMailSender mailSender;
+    private final boolean async;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration offerTimeout;
+
+    private final BlockingQueue<SimpleMailMessage> queue;
+    private final ExecutorService workers;
+    private volatile boolean running = true;
+
+    // Stats, exposed as metrics by MetricsConfig
+    private final LongAdder sendCalls = new LongAdder();
+    private final LongAdder sendNanos = new LongAdder();
+    private final LongAdder sentMessages = new LongAdder();
+    private final LongAdder failedAttempts = new LongAdder();
+    private final LongAdder droppedMessages = new LongAdder();
+    private final LongAdder rejectedMessages = new LongAdder();
+
+    public MailDispatcher(
+            JavaMailSender mailSender,
+            @Value("${auth.mail.async.enabled:true}") boolean async,
+            @Value("${auth.mail.queue.capacity:1000}") int queueCapacity,
+            @Value("${auth.mail.queue.offer-timeout:100ms}") Duration offerTimeout,
+            @Value("${auth.mail.workers:2}") int workerCount,
+            @Value("${auth.mail.batch-size:50}") int batchSize,
+            @Value("${auth.mail.retry.max-attempts:3}") int maxAttempts,
+            @Value("${auth.mail.retry.initial-backoff:500ms}") Duration initialBackoff,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+
+        this.mailSender = mailSender;
+        this.async = async;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.offerTimeout = offerTimeout;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        if (async) {
+            ThreadFactory threadFactory = virtualThreads
+                    ? Thread.ofVirtual().name("mail-dispatch-", 1).factory()
+                    : Thread.ofPlatform().name("mail-dispatch-", 1).daemon(true).factory();
+            this.workers = Executors.newFixedThreadPool(workerCount, threadFactory);
+            for (int i = 0; i < workerCount; i++) {
+                workers.execute(this::drainLoop);
+            }
+        } else {
+            this.workers = null;
+        }
+    }
+
+    /**
+     * Enqueue a message for delivery.
+     * Blocks for at most the offer timeout when the queue is full, then
+     * rejects with {@link MailQueueFullException} (backpressure).
+     */
+    public void submit(SimpleMailMessage message) {
+        if (!async) {
+            timedSend(new SimpleMailMessage[]{message});
+            return;
+        }
+        try {
+            if (!queue.offer(message, offerTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                rejectedMessages.increment();
+                throw new MailQueueFullException();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            rejectedMessages.increment();
+            throw new MailQueueFullException();
+        }
+    }
+
+    /**
+     * Send a batch on the calling thread, with retry.
+     * Returns the messages that still failed after the last attempt.
+     */
+    public List<SimpleMailMessage> sendBatch(List<SimpleMailMessage> batch) {
+        List<SimpleMailMessage> pending = new ArrayList<>(batch);
+        Duration backoff = initialBackoff;
+
+        for (int attempt = 1; attempt <= maxAttempts && !pending.isEmpty(); attempt++) {
+            try {
+                timedSend(pending.toArray(new SimpleMailMessage[0]));
+                pending.clear();
+            } catch (MailSendException ex) {
+                failedAttempts.increment();
+                List<SimpleMailMessage> failed = failedMessages(ex, pending);
+                sentMessages.add(pending.size() - failed.size());
+                pending = failed;
+                log.warn("Mail batch attempt {} failed for {} message(s)", attempt, pending.size(), ex);
+            } catch (MailException ex) {
+                // Connection/auth failure: nothing in the batch was sent
+                failedAttempts.increment();
+                log.warn("Mail batch attempt {} failed to connect", attempt, ex);
+            }
+
+            if (!pending.isEmpty() && attempt < maxAttempts && !sleep(backoff)) {
+                break;
+            }
+            backoff = backoff.multipliedBy(2);
+        }
+
+        if (!pending.isEmpty()) {
+            droppedMessages.add(pending.size());
+            log.error("Giving up on {} message(s) after {} attempts", pending.size(), maxAttempts);
+        }
+        return pending;
+    }
+
+    // Total backoff sendBatch can sleep through (excluding the SMTP calls themselves)
+    public Duration getMaxRetryDelay() {
+        return initialBackoff.multipliedBy((1L << Math.max(0, maxAttempts - 1)) - 1);
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getSendCalls() {
+        return sendCalls.sum();
+    }
+
+    public long getSendNanos() {
+        return sendNanos.sum();
+    }
+
+    public long getSentMessages() {
+        return sentMessages.sum();
+    }
+
+    public long getFailedAttempts() {
+        return failedAttempts.sum();
+    }
+
+    public long getDroppedMessages() {
+        return droppedMessages.sum();
+    }
+
+    public long getRejectedMessages() {
+        return rejectedMessages.sum();
+    }
+
+    // One SMTP session per call
+    private void timedSend(SimpleMailMessage[] messages) {
+        long start = System.nanoTime();
+        try {
+            mailSender.send(messages);
+            sentMessages.add(messages.length);
+        } finally {
+            sendNanos.add(System.nanoTime() - start);
+            sendCalls.increment();
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (workers == null) {
+            return;
+        }
+        running = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    private void drainLoop() {
+        List<SimpleMailMessage> batch = new ArrayList<>(batchSize);
+        // Keep draining after shutdown until the queue is empty
+        while (running || !queue.isEmpty()) {
+            try {
+                SimpleMailMessage first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                sendBatch(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                log.error("Unexpected error in mail worker", ex);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private static List<SimpleMailMessage> failedMessages(MailSendException ex, List<SimpleMailMessage> sent) {
+        if (ex.getFailedMessages().isEmpty()) {
+            return sent;
+        }
+        List<SimpleMailMessage> failed = new ArrayList<>();
+        for (Object message : ex.getFailedMessages().keySet()) {
+            if (message instanceof SimpleMailMessage simpleMessage) {
+                failed.add(simpleMessage);
+            }
+        }
+        return failed;
+    }
+
+    private static boolean sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
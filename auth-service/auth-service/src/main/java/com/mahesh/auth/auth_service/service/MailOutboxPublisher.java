@@ -0,0 +1,180 @@
+package com.mahesh.auth.auth_service.service;
+
+import com.mahesh.auth.auth_service.config.UserShards;
+import com.mahesh.auth.auth_service.entity.MailOutboxEntity;
+import com.mahesh.auth.auth_service.repository.MailOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Polls the outbox and hands due emails to {@link MailDispatcher}.
+ * Rows are claimed with FOR UPDATE SKIP LOCKED and leased by moving them to
+ * PROCESSING, so several instances can drain the table in parallel and a
+ * crashed instance's rows become due again when the lease runs out.
+ *
+ * Every claim counts as an attempt, so a row whose sender crashes or hangs
+ * is still marked FAILED after max-attempts leases instead of being resent
+ * forever. The lease must outlast a whole batch send: it is checked against
+ * the dispatcher's retry backoff at startup, and must also cover the SMTP
+ * time of batch-size messages.
+ *
+ * With sharding on, each shard has its own outbox (rows are written in the
+ * user's transaction), and every poll drains and purges each shard in turn.
+ *
+ * Bodies can carry OTPs, so a row's body is cleared as soon as it is SENT
+ * or FAILED, and finished rows of either kind are purged after the
+ * retention period.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "auth.mail.outbox.enabled", havingValue = "true")
+public class MailOutboxPublisher {
+
+    private final MailOutboxRepository mailOutboxRepository;
+    private final MailDispatcher mailDispatcher;
+    private final TransactionTemplate transactionTemplate;
+    private final UserShards userShards;
+
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration lease;
+    private final Duration retention;
+
+    public MailOutboxPublisher(
+            MailOutboxRepository mailOutboxRepository,
+            MailDispatcher mailDispatcher,
+            TransactionTemplate transactionTemplate,
+            UserShards userShards,
+            @Value("${auth.mail.outbox.batch-size:100}") int batchSize,
+            @Value("${auth.mail.outbox.max-attempts:5}") int maxAttempts,
+            @Value("${auth.mail.outbox.lease:2m}") Duration lease,
+            @Value("${auth.mail.outbox.retention:1d}") Duration retention) {
+
+        this.mailOutboxRepository = mailOutboxRepository;
+        this.mailDispatcher = mailDispatcher;
+        this.transactionTemplate = transactionTemplate;
+        this.userShards = userShards;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.lease = lease;
+        this.retention = retention;
+
+        if (lease.compareTo(mailDispatcher.getMaxRetryDelay()) <= 0) {
+            throw new IllegalStateException("auth.mail.outbox.lease (" + lease
+                    + ") must be longer than the mail retry backoff (" + mailDispatcher.getMaxRetryDelay() + ")");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.mail.outbox.poll-interval:PT1S}")
+    public void publish() {
+        userShards.onEachShard(() -> {
+            List<MailOutboxEntity> claimed;
+            // Keep draining while full batches come back
+            do {
+                claimed = claimBatch();
+                if (!claimed.isEmpty()) {
+                    deliver(claimed);
+                }
+            } while (claimed.size() == batchSize);
+            return null;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${auth.mail.outbox.purge-interval:PT1H}")
+    public void purgeFinished() {
+        Timestamp before = new Timestamp(System.currentTimeMillis() - retention.toMillis());
+        int deleted = userShards.onEachShard(() -> transactionTemplate.execute(status ->
+                        mailOutboxRepository.deleteByStatusInBefore(
+                                List.of(MailOutboxEntity.Status.SENT, MailOutboxEntity.Status.FAILED), before)))
+                .stream()
+                .mapToInt(count -> count == null ? 0 : count)
+                .sum();
+        if (deleted > 0) {
+            log.debug("Purged {} sent or failed outbox row(s)", deleted);
+        }
+    }
+
+    // 1️⃣ Lock due rows and lease them to this instance; each claim is an attempt
+    List<MailOutboxEntity> claimBatch() {
+        List<MailOutboxEntity> claimed = transactionTemplate.execute(status -> {
+            long now = System.currentTimeMillis();
+            List<MailOutboxEntity> rows = mailOutboxRepository.lockDueBatch(now, batchSize);
+            List<MailOutboxEntity> leased = new ArrayList<>(rows.size());
+            for (MailOutboxEntity row : rows) {
+                if (row.getAttempts() >= maxAttempts) {
+                    // Lease expired on the last attempt (sender crashed or hung)
+                    finish(row, MailOutboxEntity.Status.FAILED);
+                    log.error("Outbox message {} failed permanently after {} lease(s)", row.getId(), row.getAttempts());
+                    continue;
+                }
+                row.setAttempts(row.getAttempts() + 1);
+                row.setStatus(MailOutboxEntity.Status.PROCESSING);
+                row.setAvailableAt(now + lease.toMillis());
+                leased.add(row);
+            }
+            return leased;
+        });
+        return claimed == null ? List.of() : claimed;
+    }
+
+    // 2️⃣ Send outside the transaction, then record the outcome
+    void deliver(List<MailOutboxEntity> rows) {
+        Map<SimpleMailMessage, MailOutboxEntity> byMessage = new IdentityHashMap<>();
+        for (MailOutboxEntity row : rows) {
+            byMessage.put(toMessage(row), row);
+        }
+
+        List<SimpleMailMessage> failed = mailDispatcher.sendBatch(new ArrayList<>(byMessage.keySet()));
+        Set<SimpleMailMessage> failedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        failedSet.addAll(failed);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            long now = System.currentTimeMillis();
+            for (Map.Entry<SimpleMailMessage, MailOutboxEntity> entry : byMessage.entrySet()) {
+                MailOutboxEntity row = entry.getValue();
+                if (!failedSet.contains(entry.getKey())) {
+                    finish(row, MailOutboxEntity.Status.SENT);
+                } else {
+                    int attempts = row.getAttempts();
+                    if (attempts >= maxAttempts) {
+                        finish(row, MailOutboxEntity.Status.FAILED);
+                        log.error("Outbox message {} failed permanently", row.getId());
+                    } else {
+                        row.setStatus(MailOutboxEntity.Status.PENDING);
+                        row.setAvailableAt(now + (1000L << attempts)); // 2s, 4s, 8s...
+                    }
+                }
+            }
+            mailOutboxRepository.saveAll(rows);
+        });
+    }
+
+    // The body is only needed for delivery; don't keep OTPs around in finished rows
+    private static void finish(MailOutboxEntity row, MailOutboxEntity.Status status) {
+        row.setStatus(status);
+        row.setBody(null);
+    }
+
+    private static SimpleMailMessage toMessage(MailOutboxEntity row) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(row.getSender());
+        message.setTo(row.getRecipient());
+        message.setSubject(row.getSubject());
+        message.setText(row.getBody());
+        return message;
+    }
+}
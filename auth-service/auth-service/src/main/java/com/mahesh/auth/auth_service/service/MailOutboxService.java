@@ -0,0 +1,37 @@
+package com.mahesh.auth.auth_service.service;
+
+import com.mahesh.auth.auth_service.entity.MailOutboxEntity;
+import com.mahesh.auth.auth_service.repository.MailOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Writes outgoing emails to the outbox table.
+ * Joins the caller's transaction, so the email is stored atomically with
+ * the user change that triggered it. With sharding on, that is the user's
+ * shard; the publisher polls every shard.
+ */
+@Service
+@RequiredArgsConstructor
+public class MailOutboxService {
+
+    private final MailOutboxRepository mailOutboxRepository;
+
+    @Transactional(propagation = Propagation.REQUIRED)
+    public void enqueue(SimpleMailMessage message) {
+        for (String recipient : message.getTo()) {
+            mailOutboxRepository.save(MailOutboxEntity.builder()
+                    .recipient(recipient)
+                    .sender(message.getFrom())
+                    .subject(message.getSubject())
+                    .body(message.getText())
+                    .status(MailOutboxEntity.Status.PENDING)
+                    .attempts(0)
+                    .availableAt(System.currentTimeMillis())
+                    .build());
+        }
+    }
+}
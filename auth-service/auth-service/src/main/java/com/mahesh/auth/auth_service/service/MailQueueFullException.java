@@ -0,0 +1,14 @@
+package com.mahesh.auth.auth_service.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Thrown when the outbound mail queue stays full past the offer timeout.
+ */
+public class MailQueueFullException extends ResponseStatusException {
+
+    public MailQueueFullException() {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Mail queue is full, please try again later");
+    }
+}
@@ -0,0 +1,151 @@
+package com.mahesh.auth.auth_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts failed OTP guesses per user and per client IP.
+ * After maxFailures misses the key is locked out; each further lockout
+ * doubles the duration (up to maxLockout). Locked users and IPs are
+ * rejected from memory before the user row is loaded.
+ */
+@Service
+public class OtpAttemptService {
+
+    /** Failed-attempt state; also what ProfileServiceImpl persists on the user row. */
+    public record Attempts(int failures, int lockouts, long lockedUntil) {
+
+        static final Attempts NONE = new Attempts(0, 0, 0L);
+
+        boolean isLocked(long now) {
+            return lockedUntil > now;
+        }
+
+        Attempts merge(Attempts other) {
+            if (other == null) {
+                return this;
+            }
+            return new Attempts(Math.max(failures, other.failures),
+                    Math.max(lockouts, other.lockouts),
+                    Math.max(lockedUntil, other.lockedUntil));
+        }
+    }
+
+    private final boolean enabled;
+    private final int maxUserFailures;
+    private final int maxIpFailures;
+    private final long baseLockoutMillis;
+    private final long maxLockoutMillis;
+    private final Cache<String, Attempts> attempts;
+    private final MeterRegistry meterRegistry;
+
+    public OtpAttemptService(
+            MeterRegistry meterRegistry,
+            @Value("${auth.otp.lockout.enabled:true}") boolean enabled,
+            @Value("${auth.otp.lockout.max-failures:5}") int maxUserFailures,
+            @Value("${auth.otp.lockout.max-ip-failures:20}") int maxIpFailures,
+            @Value("${auth.otp.lockout.base-duration:1m}") Duration baseLockout,
+            @Value("${auth.otp.lockout.max-duration:1h}") Duration maxLockout,
+            @Value("${auth.otp.lockout.max-size:100000}") long maxSize) {
+
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.maxUserFailures = maxUserFailures;
+        this.maxIpFailures = maxIpFailures;
+        this.baseLockoutMillis = baseLockout.toMillis();
+        this.maxLockoutMillis = maxLockout.toMillis();
+        // Idle keys are forgotten once a full max-length lockout has passed
+        this.attempts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(maxLockout.multipliedBy(2))
+                .build();
+    }
+
+    /** Reject a locked user or IP without touching the database. */
+    public void checkNotLocked(String email, String clientIp) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        rejectIfLocked(attempts.getIfPresent(userKey(email)), now);
+        if (clientIp != null) {
+            rejectIfLocked(attempts.getIfPresent(ipKey(clientIp)), now);
+        }
+    }
+
+    /**
+     * Seed memory with state persisted on the user row (other instances,
+     * restarts) and reject if that state is a lockout.
+     */
+    public void restore(String email, Attempts persisted) {
+        if (!enabled || persisted == null) {
+            return;
+        }
+        Attempts merged = attempts.asMap().merge(userKey(email), persisted, Attempts::merge);
+        rejectIfLocked(merged, System.currentTimeMillis());
+    }
+
+    /**
+     * Record a wrong guess for the user and the IP.
+     *
+     * @return the user's new state, for optional persistence
+     */
+    public Attempts recordFailure(String email, String clientIp) {
+        if (!enabled) {
+            return Attempts.NONE;
+        }
+        long now = System.currentTimeMillis();
+        if (clientIp != null) {
+            fail(ipKey(clientIp), maxIpFailures, now, "ip");
+        }
+        return fail(userKey(email), maxUserFailures, now, "user");
+    }
+
+    public void recordSuccess(String email) {
+        attempts.invalidate(userKey(email));
+    }
+
+    private Attempts fail(String key, int maxFailures, long now, String scope) {
+        Attempts updated = attempts.asMap().compute(key, (k, current) -> {
+            Attempts state = current == null ? Attempts.NONE : current;
+            int failures = state.failures() + 1;
+            if (failures < maxFailures) {
+                return new Attempts(failures, state.lockouts(), state.lockedUntil());
+            }
+            int lockouts = state.lockouts() + 1;
+            return new Attempts(0, lockouts, now + lockoutMillis(lockouts));
+        });
+        if (updated.failures() == 0) {
+            meterRegistry.counter("auth.otp.lockout", "scope", scope).increment();
+        }
+        return updated;
+    }
+
+    private long lockoutMillis(int lockouts) {
+        int shift = Math.min(lockouts - 1, 30);
+        return Math.min(baseLockoutMillis << shift, maxLockoutMillis);
+    }
+
+    private static void rejectIfLocked(Attempts state, long now) {
+        if (state != null && state.isLocked(now)) {
+            long retryAfter = TimeUnit.MILLISECONDS.toSeconds(state.lockedUntil() - now);
+            throw new RateLimitExceededException(
+                    "Too many failed OTP attempts, please try again later", Math.max(1, retryAfter));
+        }
+    }
+
+    private static String userKey(String email) {
+        return "u:" + email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String ipKey(String clientIp) {
+        return "i:" + clientIp;
+    }
+}
@@ -0,0 +1,52 @@
+package com.mahesh.auth.auth_service.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+
+/**
+ * Keyed hash (HMAC-SHA256) of pending OTPs.
+ * A 6-digit OTP has only a million values, so a plain hash from a leaked
+ * row is reversed by brute force in milliseconds; without the server-side
+ * key the stored value gives nothing away.
+ */
+@Slf4j
+@Component
+public class OtpHasher {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+
+    public OtpHasher(@Value("${auth.otp.secret:${jwt.secret.key:}}") String secret) {
+        byte[] keyBytes;
+        if (secret.isEmpty()) {
+            log.warn("No auth.otp.secret set; using a random key (pending OTPs will not survive a restart "
+                    + "or be shared between instances)");
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+    }
+
+    public String hash(String email, OtpStore.Purpose purpose, String otp) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            // Prefix keeps these MACs apart from anything else signed with a shared secret
+            String value = "otp:" + purpose.name() + ':' + email + ':' + otp;
+            return HexFormat.of().formatHex(mac.doFinal(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ALGORITHM + " not available", ex);
+        }
+    }
+}
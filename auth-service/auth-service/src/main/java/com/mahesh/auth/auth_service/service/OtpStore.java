@@ -0,0 +1,32 @@
+package com.mahesh.auth.auth_service.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+
+/**
+ * Short-lived one-time passwords, kept apart from the user row so that
+ * issuing or checking an OTP never rewrites tbl_users.
+ * Only a keyed hash of the OTP is stored (see {@link OtpHasher}).
+ */
+public interface OtpStore {
+
+    enum Purpose { VERIFY, RESET }
+
+    enum Result { VALID, INVALID, EXPIRED, MISSING }
+
+    // Replaces any previous OTP for the same email and purpose
+    void put(String email, Purpose purpose, String otp, Duration ttl);
+
+    /** Check an OTP; a VALID OTP is consumed and cannot be used again. */
+    Result verify(String email, Purpose purpose, String otp);
+
+    // Drop expired OTPs; returns the number removed
+    int purgeExpired();
+
+    static boolean matches(String expectedHash, String actualHash) {
+        return MessageDigest.isEqual(
+                expectedHash.getBytes(StandardCharsets.US_ASCII),
+                actualHash.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -2,6 +2,7 @@ package com.mahesh.auth.auth_service.service;
 
 import com.mahesh.auth.auth_service.io.ProfileRequest;
 import com.mahesh.auth.auth_service.io.ProfileResponse;
+import com.mahesh.auth.auth_service.io.VersionedProfile;
 
 public interface ProfileService {
 
@@ -9,13 +10,17 @@ public interface ProfileService {
 
     ProfileResponse getProfile(String email);
 
+    VersionedProfile getVersionedProfile(String email);
+
+    String getProfileVersion(String email);
+
     void sendResetOtp(String email);
 
-    void resetPassword(String email, String otp, String newPassword);
+    void resetPassword(String email, String otp, String newPassword, String clientIp);
 
     void sendOtp(String email);
 
-    void verifyOtp(String email, String otp);
+    void verifyOtp(String email, String otp, String clientIp);
 
     String getLoggedInUserId(String email);
 }
@@ -1,62 +1,133 @@
 package com.mahesh.auth.auth_service.service;
 
+import com.mahesh.auth.auth_service.config.ReadYourWritesTracker;
+import com.mahesh.auth.auth_service.config.UserShards;
 import com.mahesh.auth.auth_service.entity.UserEntity;
 import com.mahesh.auth.auth_service.io.ProfileRequest;
 import com.mahesh.auth.auth_service.io.ProfileResponse;
+import com.mahesh.auth.auth_service.io.VersionedProfile;
+import com.mahesh.auth.auth_service.repository.ProfileVersion;
+import com.mahesh.auth.auth_service.repository.UserOtpState;
+import com.mahesh.auth.auth_service.repository.UserProfileView;
 import com.mahesh.auth.auth_service.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.util.UUID;
+import java.time.Duration;
+import java.util.Locale;
 import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 @RequiredArgsConstructor
 public class ProfileServiceImpl implements ProfileService {
 
+    private static final Duration RESET_OTP_TTL = Duration.ofMinutes(15);
+    private static final Duration VERIFY_OTP_TTL = Duration.ofMinutes(10);
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final EmailService emailService;
-
-
+    private final UserDetailsCache userDetailsCache;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
+    private final OtpStore otpStore;
+    private final OtpAttemptService otpAttemptService;
+    private final ReadYourWritesTracker readYourWrites;
+    private final UserShards userShards;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+
+    // Also keep failed OTP attempts on the user row (survives restarts, shared across instances)
+    @Value("${auth.otp.lockout.persist:false}")
+    private boolean persistOtpLockout;
+
+    /**
+     * Not @Transactional: the password is hashed first, since that can wait
+     * in the bounded hashing queue, and only then is a connection taken for
+     * the insert.
+     */
     @Override
     public ProfileResponse createProfile(ProfileRequest request) {
 
-        // 1️⃣ Check if email already exists
-        if (userRepository.existsByEmail(request.getEmail())) {
-            throw new ResponseStatusException(
-                    HttpStatus.CONFLICT,
-                    "Email already exists"
-            );
-        }
-
-        // 2️⃣ Convert request to entity
+        // 1️⃣ Convert request to entity (hashes the password, no transaction yet)
         UserEntity newProfile = convertToUserEntity(request);
 
-        // 3️⃣ Save user
-        newProfile = userRepository.save(newProfile);
+        UserEntity saved;
+        try {
+            saved = transactionTemplate.execute(status -> {
+                userShards.bind(request.getEmail());
+
+                // 2️⃣ Insert user; the unique email constraint detects duplicates
+                //    (no existsByEmail round trip, and no race between check and insert)
+                UserEntity inserted = userRepository.saveAndFlush(newProfile);
+                userDetailsCache.invalidate(inserted.getEmail());
+                readYourWrites.wrote(inserted.getEmail());
+
+                // 3️⃣ Welcome email (outbox row in this transaction, otherwise queued after commit)
+                emailService.sendWelcomeEmail(inserted.getEmail(), inserted.getName());
+                return inserted;
+            });
+        } catch (DataIntegrityViolationException ex) {
+            if (isDuplicateEmail(ex) || isUniqueViolation(ex) && emailTaken(request.getEmail())) {
+                throw new ResponseStatusException(
+                        HttpStatus.CONFLICT,
+                        "Email already exists"
+                );
+            }
+            throw ex;
+        }
 
         // 4️⃣ Return response
-        return convertToProfileResponse(newProfile);
+        return convertToProfileResponse(saved);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ProfileResponse getProfile(String email) {
-       UserEntity existingUser = userRepository.findByEmail(email)
+       userShards.bind(email);
+       UserProfileView existingUser = readYourWrites.readFor(email, () -> userRepository.findProfileByEmail(email))
                 .orElseThrow(() -> new UsernameNotFoundException("User not Found: "+ email));
        return  convertToProfileResponse(existingUser);
 
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public VersionedProfile getVersionedProfile(String email) {
+        userShards.bind(email);
+        UserProfileView existingUser = readYourWrites.readFor(email, () -> userRepository.findProfileByEmail(email))
+                .orElseThrow(() -> new UsernameNotFoundException("User not Found: " + email));
+        String version = new ProfileVersion(existingUser.userId(), existingUser.updatedAt()).tag();
+        return new VersionedProfile(convertToProfileResponse(existingUser), version);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public String getProfileVersion(String email) {
+        userShards.bind(email);
+        return readYourWrites.readFor(email, () -> userRepository.findProfileVersionByEmail(email))
+                .orElseThrow(() -> new UsernameNotFoundException("User not Found: " + email))
+                .tag();
+    }
+
+    @Override
+    @Transactional
     public void sendResetOtp(String email) {
 
+        userShards.bind(email);
+
         // 1️⃣ Find user by email
-        UserEntity existingUser = userRepository.findByEmail(email)
+        UserOtpState existingUser = userRepository.findOtpStateByEmail(email)
                 .orElseThrow(() ->
                         new UsernameNotFoundException("User not found: " + email));
 
@@ -65,67 +136,94 @@ public class ProfileServiceImpl implements ProfileService {
                 ThreadLocalRandom.current().nextInt(100000, 1000000)
         );
 
-        // 3️⃣ Calculate expiry time (current time + 15 minutes)
-        long expiryTime = System.currentTimeMillis() + (15 * 60 * 1000);
-
-        // 4️⃣ Update user entity
-        existingUser.setResetOtp(otp);
-        existingUser.setResetOtpExpiredAt(expiryTime);
-
-        // 5️⃣ Save updated user in DB
-        userRepository.save(existingUser);
+        // 3️⃣ Store OTP (15 minutes) outside the user row
+        otpStore.put(existingUser.email(), OtpStore.Purpose.RESET, otp, RESET_OTP_TTL);
+        otpIssued("reset");
 
         try {
-            // 6️⃣ Send OTP email
+            // 4️⃣ Send OTP email
             emailService.sendResetOtpEmail(
-                    existingUser.getEmail(),
+                    existingUser.email(),
                     otp
             );
+        } catch (MailQueueFullException ex) {
+            throw ex;
         } catch (Exception ex) {
             throw new RuntimeException("Failed to send reset OTP email");
         }
     }
 
+    /**
+     * Not @Transactional, for the same reason as createProfile: the new
+     * password is hashed before the transaction that checks the OTP and
+     * stores it. A wrong OTP still commits (the failed attempt is recorded)
+     * and is thrown afterwards.
+     */
     @Override
-    public void resetPassword(String email, String otp, String newPassword) {
-
-        UserEntity existingUser = userRepository.findByEmail(email)
-                .orElseThrow(() ->
-                        new UsernameNotFoundException("User not found: " + email));
-
-        // 1️⃣ Validate OTP
-        if (existingUser.getResetOtp() == null ||
-                !existingUser.getResetOtp().equals(otp)) {
-
-            throw new RuntimeException("Invalid OTP");
+    public void resetPassword(String email, String otp, String newPassword, String clientIp) {
+
+        // Locked users/IPs never reach the database or the hashing pool
+        otpAttemptService.checkNotLocked(email, clientIp);
+
+        String encodedPassword = passwordEncoder.encode(newPassword);
+
+        InvalidOtpException invalidOtp = transactionTemplate.execute(status -> {
+            userShards.bind(email);
+
+            UserOtpState existingUser = userRepository.findOtpStateByEmail(email)
+                    .orElseThrow(() -> {
+                        otpAttemptService.recordFailure(email, clientIp);
+                        return new UsernameNotFoundException("User not found: " + email);
+                    });
+            restoreOtpAttempts(existingUser);
+
+            // 1️⃣ Validate and consume OTP
+            switch (otpStore.verify(existingUser.email(), OtpStore.Purpose.RESET, otp)) {
+                case MISSING, INVALID -> {
+                    otpVerified("reset", "invalid");
+                    otpFailed(existingUser, clientIp);
+                    return new InvalidOtpException();
+                }
+                case EXPIRED -> {
+                    otpVerified("reset", "expired");
+                    throw new RuntimeException("OTP expired");
+                }
+                case VALID -> otpSucceeded(existingUser);
+            }
+
+            // 2️⃣ Update password (hashed above) in place
+            userRepository.updatePassword(existingUser.email(), encodedPassword);
+            readYourWrites.wrote(existingUser.email());
+
+            // 3️⃣ Drop the cached (old) password hash and end all sessions
+            userDetailsCache.invalidate(existingUser.email());
+            // Sessions live on the home shard
+            userShards.onHomeShard(() -> {
+                refreshTokenService.revokeAll(existingUser.email());
+                tokenRevocationService.revokeAllForUser(existingUser.email());
+            });
+            return null;
+        });
+
+        if (invalidOtp != null) {
+            throw invalidOtp;
         }
-
-        // 2️⃣ Check OTP expiry
-        if (existingUser.getResetOtpExpiredAt() < System.currentTimeMillis()) {
-            throw new RuntimeException("OTP expired");
-        }
-
-        // 3️⃣ Update password (encoded)
-        existingUser.setPassword(passwordEncoder.encode(newPassword));
-
-        // 4️⃣ Clear OTP after successful reset
-        existingUser.setResetOtp(null);
-        existingUser.setResetOtpExpiredAt(null);
-
-        // 5️⃣ Save updated user
-        userRepository.save(existingUser);
+        otpVerified("reset", "success");
     }
 
     @Override
+    @Transactional
     public void sendOtp(String email) {
 
+        userShards.bind(email);
+
         // 1️⃣ Find user by email
-        UserEntity existingUser = userRepository.findByEmail(email)
+        UserOtpState existingUser = userRepository.findOtpStateByEmail(email)
                 .orElseThrow(() ->
                         new RuntimeException("User not found with email: " + email));
 
         // 2️⃣ If account already verified, do nothing
-        if (Boolean.TRUE.equals(existingUser.getIsAccountVerified())) {
+        if (Boolean.TRUE.equals(existingUser.isAccountVerified())) {
             return;
         }
 
@@ -134,21 +232,17 @@ public class ProfileServiceImpl implements ProfileService {
                 ThreadLocalRandom.current().nextInt(100000, 1000000)
         );
 
-        // 4️⃣ Expiry time (10 minutes)
-        long expiryTime = System.currentTimeMillis() + (10 * 60 * 1000);
-
-        // 5️⃣ Save OTP details in user entity
-        existingUser.setVerifyOtp(otp);
-        existingUser.setVerifyOtpExpireAt(expiryTime);
-
-        // 6️⃣ Save updated user in database
-        userRepository.save(existingUser);
+        // 4️⃣ Store OTP (10 minutes) outside the user row
+        otpStore.put(existingUser.email(), OtpStore.Purpose.VERIFY, otp, VERIFY_OTP_TTL);
+        otpIssued("verify");
 
-        // 7️⃣ Send OTP email
-        emailService.sendResetOtpEmail(existingUser.getEmail(), otp);
+        // 5️⃣ Send OTP email
+        emailService.sendResetOtpEmail(existingUser.email(), otp);
 
         try{
-            emailService.sendOtpEmail(existingUser.getEmail(), otp);
+            emailService.sendOtpEmail(existingUser.email(), otp);
+        }catch (MailQueueFullException ex){
+            throw ex;
         }catch (Exception ex){
             throw new RuntimeException("Unable to send email");
         }
@@ -156,51 +250,130 @@ public class ProfileServiceImpl implements ProfileService {
 
 
     @Override
-    public void verifyOtp(String email, String otp) {
+    @Transactional(noRollbackFor = InvalidOtpException.class)
+    public void verifyOtp(String email, String otp, String clientIp) {
+
+        userShards.bind(email);
+
+        otpAttemptService.checkNotLocked(email, clientIp);
 
         // 1️⃣ Find user by email
-        UserEntity existingUser = userRepository.findByEmail(email)
+        UserOtpState existingUser = userRepository.findOtpStateByEmail(email)
                 .orElseThrow(() ->
                         new RuntimeException("User not found with email: " + email));
-
-        // 2️⃣ Check OTP exists
-        if (existingUser.getVerifyOtp() == null) {
-            throw new RuntimeException("OTP not generated");
+        restoreOtpAttempts(existingUser);
+
+        // 2️⃣ Validate and consume OTP
+        switch (otpStore.verify(existingUser.email(), OtpStore.Purpose.VERIFY, otp)) {
+            case MISSING -> {
+                otpVerified("verify", "missing");
+                throw new RuntimeException("OTP not generated");
+            }
+            case INVALID -> {
+                otpVerified("verify", "invalid");
+                otpFailed(existingUser, clientIp);
+                throw new InvalidOtpException();
+            }
+            case EXPIRED -> {
+                otpVerified("verify", "expired");
+                throw new RuntimeException("OTP expired");
+            }
+            case VALID -> otpSucceeded(existingUser);
         }
 
-        // 3️⃣ Validate OTP
-        if (!existingUser.getVerifyOtp().equals(otp)) {
-            throw new RuntimeException("Invalid OTP");
-        }
+        // 3️⃣ Mark account as verified in place
+        userRepository.markAccountVerified(existingUser.email());
+        readYourWrites.wrote(existingUser.email());
 
-        // 4️⃣ Check OTP expiry
-        if (existingUser.getVerifyOtpExpireAt() < System.currentTimeMillis()) {
-            throw new RuntimeException("OTP expired");
-        }
-
-        // 5️⃣ Mark account as verified
-        existingUser.setIsAccountVerified(true);
-
-        // 6️⃣ Clear OTP data (important)
-        existingUser.setVerifyOtp(null);
-        existingUser.setVerifyOtpExpireAt(null);
-
-        // 7️⃣ Save updated user
-        userRepository.save(existingUser);
+        // 4️⃣ Refresh cached verification status
+        userDetailsCache.invalidate(existingUser.email());
+        otpVerified("verify", "success");
     }
 
 
     @Override
+    @Transactional(readOnly = true)
     public String getLoggedInUserId(String email) {
 
-        UserEntity user = userRepository.findByEmail(email)
+        userShards.bind(email);
+
+        return readYourWrites.readFor(email, () -> userRepository.findUserIdByEmail(email))
                 .orElseThrow(() ->
                         new UsernameNotFoundException("User not found: " + email));
+    }
+
 
-        return user.getUserId();
+
+    // Only the email unique key means the address is taken. Anything else (the
+    // primary key after a badly seeded sequence, the userId key) is a server
+    // fault and must not read as 409.
+    // Drivers qualify the name differently (MySQL: tbl_users.uk_users_email), hence contains.
+    private static boolean isDuplicateEmail(DataIntegrityViolationException ex) {
+        ConstraintViolationException violation = constraintViolation(ex);
+        String constraint = violation == null ? null : violation.getConstraintName();
+        return isUniqueViolation(ex)
+                && constraint != null
+                && constraint.toLowerCase(Locale.ROOT).contains(UserEntity.EMAIL_CONSTRAINT);
     }
 
+    private static boolean isUniqueViolation(DataIntegrityViolationException ex) {
+        ConstraintViolationException violation = constraintViolation(ex);
+        return violation != null && violation.getKind() == ConstraintViolationException.ConstraintKind.UNIQUE;
+    }
 
+    private static ConstraintViolationException constraintViolation(DataIntegrityViolationException ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return violation;
+            }
+        }
+        return null;
+    }
+
+    // Schemas created before the key was named carry a generated name (UK6dot...);
+    // for any other unique violation, ask the database whether the email is taken
+    private boolean emailTaken(String email) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            userShards.bind(email);
+            return userRepository.existsByEmail(email);
+        }));
+    }
+
+    private void restoreOtpAttempts(UserOtpState user) {
+        if (persistOtpLockout && user.otpLockedUntil() != null) {
+            otpAttemptService.restore(user.email(), new OtpAttemptService.Attempts(
+                    valueOrZero(user.otpFailedAttempts()),
+                    valueOrZero(user.otpLockouts()),
+                    user.otpLockedUntil()));
+        }
+    }
+
+    private void otpFailed(UserOtpState user, String clientIp) {
+        OtpAttemptService.Attempts attempts = otpAttemptService.recordFailure(user.email(), clientIp);
+        if (persistOtpLockout) {
+            userRepository.updateOtpAttempts(user.email(),
+                    attempts.failures(), attempts.lockouts(), attempts.lockedUntil());
+        }
+    }
+
+    private void otpSucceeded(UserOtpState user) {
+        otpAttemptService.recordSuccess(user.email());
+        if (persistOtpLockout && user.otpLockedUntil() != null) {
+            userRepository.updateOtpAttempts(user.email(), null, null, null);
+        }
+    }
+
+    private static int valueOrZero(Integer value) {
+        return value == null ? 0 : value;
+    }
+
+    private void otpIssued(String type) {
+        meterRegistry.counter("auth.otp.issued", "type", type).increment();
+    }
+
+    private void otpVerified(String type, String outcome) {
+        meterRegistry.counter("auth.otp.verify", "type", type, "outcome", outcome).increment();
+    }
 
     private ProfileResponse convertToProfileResponse(UserEntity user) {
 
@@ -212,18 +385,24 @@ public class ProfileServiceImpl implements ProfileService {
                 .build();
     }
 
+    private ProfileResponse convertToProfileResponse(UserProfileView user) {
+
+        return ProfileResponse.builder()
+                .userId(user.userId())
+                .name(user.name())
+                .email(user.email())
+                .isAccountVerified(user.isAccountVerified())
+                .build();
+    }
+
     private UserEntity convertToUserEntity(ProfileRequest request) {
 
         return UserEntity.builder()
-                .userId(UUID.randomUUID().toString())
+                .userId(userShards.newUserId(request.getEmail()))
                 .name(request.getName())
                 .email(request.getEmail())
                 .password(passwordEncoder.encode(request.getPassword())) // 🔥 FIX
                 .isAccountVerified(false)
-                .verifyOtp(null)
-                .verifyOtpExpireAt(0L)
-                .resetOtp(null)
-                .resetOtpExpiredAt(0L)
                 .build();
     }
 }
@@ -0,0 +1,137 @@
+package com.mahesh.auth.auth_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles the endpoints whose requests cost a password hash or an email.
+ * Every action is limited per email, per client IP and globally; limits are
+ * written as "permits/period", e.g. "10/1m", and allow bursts up to permits.
+ */
+@Service
+public class RateLimitService {
+
+    public enum Action { LOGIN, SEND_OTP, RESET_PASSWORD }
+
+    private enum Scope { EMAIL, IP, GLOBAL }
+
+    private record Limit(long emissionIntervalMicros, long burstToleranceMicros) {
+
+        static Limit parse(String spec) {
+            String[] parts = spec.split("/", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Rate limit must be permits/period: " + spec);
+            }
+            long permits = Long.parseLong(parts[0].trim());
+            Duration period = DurationStyle.detectAndParse(parts[1].trim());
+            if (permits <= 0 || period.isNegative() || period.isZero()) {
+                throw new IllegalArgumentException("Rate limit needs at least one permit per positive period: " + spec);
+            }
+            long interval = Math.max(1, TimeUnit.NANOSECONDS.toMicros(period.toNanos()) / permits);
+            return new Limit(interval, interval * (permits - 1));
+        }
+    }
+
+    private final RateLimitStore store;
+    private final boolean enabled;
+    private final Map<Action, Map<Scope, Limit>> limits = new EnumMap<>(Action.class);
+    private final Map<Action, Map<Scope, Counter>> rejected = new EnumMap<>(Action.class);
+
+    public RateLimitService(
+            RateLimitStore store,
+            MeterRegistry meterRegistry,
+            @Value("${auth.rate-limit.enabled:true}") boolean enabled,
+            @Value("${auth.rate-limit.login.per-email:10/5m}") String loginPerEmail,
+            @Value("${auth.rate-limit.login.per-ip:30/1m}") String loginPerIp,
+            @Value("${auth.rate-limit.login.global:200/1s}") String loginGlobal,
+            @Value("${auth.rate-limit.otp.per-email:3/10m}") String otpPerEmail,
+            @Value("${auth.rate-limit.otp.per-ip:10/10m}") String otpPerIp,
+            @Value("${auth.rate-limit.otp.global:50/1s}") String otpGlobal,
+            @Value("${auth.rate-limit.reset-password.per-email:5/10m}") String resetPerEmail,
+            @Value("${auth.rate-limit.reset-password.per-ip:20/10m}") String resetPerIp,
+            @Value("${auth.rate-limit.reset-password.global:100/1s}") String resetGlobal) {
+
+        this.store = store;
+        this.enabled = enabled;
+
+        register(Action.LOGIN, loginPerEmail, loginPerIp, loginGlobal);
+        register(Action.SEND_OTP, otpPerEmail, otpPerIp, otpGlobal);
+        register(Action.RESET_PASSWORD, resetPerEmail, resetPerIp, resetGlobal);
+
+        for (Action action : Action.values()) {
+            Map<Scope, Counter> counters = new EnumMap<>(Scope.class);
+            for (Scope scope : Scope.values()) {
+                counters.put(scope, Counter.builder("auth.ratelimit.rejected")
+                        .tag("action", action.name().toLowerCase(Locale.ROOT))
+                        .tag("scope", scope.name().toLowerCase(Locale.ROOT))
+                        .register(meterRegistry));
+            }
+            rejected.put(action, counters);
+        }
+    }
+
+    /**
+     * Take one permit for the action or throw {@link RateLimitExceededException}.
+     * Narrow scopes are checked first so one abusive client does not drain
+     * the global budget; permits already taken are given back when a later
+     * scope rejects, so a refused request is not charged to the client.
+     * clientIp is the servlet remote address: behind a proxy, set
+     * server.forward-headers-strategy so it is the real client.
+     */
+    public void check(Action action, String clientIp, String email) {
+        if (!enabled) {
+            return;
+        }
+        long now = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        String prefix = action.name();
+
+        Map<Scope, String> keys = new EnumMap<>(Scope.class);
+        if (email != null) {
+            keys.put(Scope.EMAIL, prefix + ":e:" + email.trim().toLowerCase(Locale.ROOT));
+        }
+        if (clientIp != null) {
+            keys.put(Scope.IP, prefix + ":i:" + clientIp);
+        }
+        keys.put(Scope.GLOBAL, prefix + ":g");
+
+        List<Scope> taken = new ArrayList<>(keys.size());
+        for (Map.Entry<Scope, String> entry : keys.entrySet()) {
+            Limit limit = limits.get(action).get(entry.getKey());
+            long waitMicros = store.tryAcquire(entry.getValue(),
+                    limit.emissionIntervalMicros(), limit.burstToleranceMicros(), now);
+            if (waitMicros > 0) {
+                for (Scope scope : taken) {
+                    store.release(keys.get(scope), limits.get(action).get(scope).emissionIntervalMicros());
+                }
+                rejected.get(action).get(entry.getKey()).increment();
+                throw new RateLimitExceededException(Math.max(1, TimeUnit.MICROSECONDS.toSeconds(waitMicros)));
+            }
+            taken.add(entry.getKey());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${auth.rate-limit.purge-interval:PT1M}")
+    public void purge() {
+        store.purge(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()));
+    }
+
+    private void register(Action action, String perEmail, String perIp, String global) {
+        Map<Scope, Limit> byScope = new EnumMap<>(Scope.class);
+        byScope.put(Scope.EMAIL, Limit.parse(perEmail));
+        byScope.put(Scope.IP, Limit.parse(perIp));
+        byScope.put(Scope.GLOBAL, Limit.parse(global));
+        limits.put(action, byScope);
+    }
+}
@@ -0,0 +1,29 @@
+package com.mahesh.auth.auth_service.service;
+
+/**
+ * Backing store for token buckets.
+ * Implementations must make {@link #tryAcquire} atomic per key; a shared
+ * store (e.g. a Redis script) makes the limits cluster-wide.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Try to take one token from the bucket stored under key.
+     *
+     * @param emissionIntervalMicros time to refill one token
+     * @param burstToleranceMicros   extra time credit, i.e. (capacity - 1) tokens
+     * @param nowMicros              current epoch time in microseconds
+     * @return 0 if allowed, otherwise microseconds until a token is available
+     */
+    long tryAcquire(String key, long emissionIntervalMicros, long burstToleranceMicros, long nowMicros);
+
+    /**
+     * Give back a token taken by {@link #tryAcquire}, used when a later scope
+     * rejects the same request.
+     */
+    void release(String key, long emissionIntervalMicros);
+
+    // Drop buckets that are full again (no state worth keeping)
+    default void purge(long nowMicros) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.mahesh.auth.auth_service.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+// The token was rotated moments ago by a concurrent refresh; retry with the new cookie
+public class RefreshTokenRotatedException extends ResponseStatusException {
+
+    public RefreshTokenRotatedException() {
+        super(HttpStatus.CONFLICT, "Refresh token was just rotated, retry with the new token");
+    }
+}
@@ -0,0 +1,141 @@
+package com.mahesh.auth.auth_service.service;
+
+import com.mahesh.auth.auth_service.entity.RefreshTokenEntity;
+import com.mahesh.auth.auth_service.repository.RefreshTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Long-lived, single-use refresh tokens.
+ * Each refresh revokes the presented token and issues a new one in the same
+ * family. Presenting an already revoked token means it was stolen or
+ * replayed, so the whole family is revoked.
+ *
+ * Tabs sharing the cookie can refresh at the same moment: a token rotated
+ * less than reuse-grace ago gets a 409 instead, and the client retries with
+ * the cookie the winning refresh set.
+ */
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final Duration ttl;
+    private final Duration reuseGrace;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               @Value("${jwt.refresh-token.ttl:14d}") Duration ttl,
+                               @Value("${jwt.refresh-token.reuse-grace:10s}") Duration reuseGrace) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.ttl = ttl;
+        this.reuseGrace = reuseGrace;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    // Start a new family at login
+    @Transactional
+    public String issue(String email) {
+        return store(email, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Exchange a refresh token for a new one.
+     * Returns the rotated token; the caller's email is available via the result.
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public Rotation rotate(String rawToken) {
+
+        // Locking read, so a concurrent rotation's outcome is visible once we get the row
+        RefreshTokenEntity existing = refreshTokenRepository.lockByTokenHash(hash(rawToken))
+                .orElseThrow(() -> new InvalidRefreshTokenException("Invalid refresh token"));
+        long now = System.currentTimeMillis();
+
+        // 1️⃣ Already used: a concurrent refresh if it was rotated just now,
+        //    otherwise a replay → revoke every token of this login
+        if (existing.getRevoked()) {
+            Long rotatedAt = existing.getRotatedAt();
+            if (rotatedAt != null && now - rotatedAt <= reuseGrace.toMillis()) {
+                throw new RefreshTokenRotatedException();
+            }
+            refreshTokenRepository.revokeFamily(existing.getFamilyId());
+            log.warn("Refresh token reuse detected, family {} revoked", existing.getFamilyId());
+            throw new InvalidRefreshTokenException("Refresh token reuse detected");
+        }
+
+        // 2️⃣ Claim the token; expired tokens are revoked too, which changes nothing
+        existing.setRevoked(true);
+        if (existing.getExpiresAt() < now) {
+            throw new InvalidRefreshTokenException("Refresh token expired");
+        }
+        existing.setRotatedAt(now);
+
+        // 3️⃣ Issue the next token in the family
+        String next = store(existing.getEmail(), existing.getFamilyId());
+        return new Rotation(existing.getEmail(), next);
+    }
+
+    // Logout: revoke the presented token's family
+    @Transactional
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId()));
+    }
+
+    // Sign out everywhere (e.g. after a password reset)
+    @Transactional(propagation = Propagation.REQUIRED)
+    public void revokeAll(String email) {
+        refreshTokenRepository.revokeAllForEmail(email);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh-token.purge-interval:PT1H}")
+    @Transactional
+    public void purgeExpired() {
+        refreshTokenRepository.deleteExpired(System.currentTimeMillis());
+    }
+
+    private String store(String email, String familyId) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        refreshTokenRepository.save(RefreshTokenEntity.builder()
+                .tokenHash(hash(rawToken))
+                .familyId(familyId)
+                .email(email)
+                .expiresAt(System.currentTimeMillis() + ttl.toMillis())
+                .build());
+
+        return rawToken;
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(rawToken.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    public record Rotation(String email, String refreshToken) {
+    }
+}
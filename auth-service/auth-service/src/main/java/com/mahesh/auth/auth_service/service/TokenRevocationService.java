@@ -0,0 +1,187 @@
+package com.mahesh.auth.auth_service.service;
+
+import com.mahesh.auth.auth_service.entity.RevokedTokenEntity;
+import com.mahesh.auth.auth_service.repository.RevokedTokenRepository;
+import com.mahesh.auth.auth_service.util.BloomFilter;
+import com.mahesh.auth.auth_service.util.VerifiedToken;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Revocation list for access tokens.
+ * Revocations are stored in tbl_revoked_tokens and mirrored in memory:
+ * a Bloom filter answers the common "not revoked" case without touching the
+ * exact map, and the map (jti → expiry) confirms the rare positives.
+ * User-wide revocations ("sign out everywhere") are kept as email → time.
+ * Other instances pick up new rows through a periodic incremental sync.
+ * The sync follows revokedAt rather than the row id: ids are assigned at
+ * insert, so a row that commits after a higher id was already read would be
+ * skipped for good. Each sync re-reads an overlap window behind the newest
+ * revokedAt seen, which covers late commits and clock skew between instances.
+ */
+@Slf4j
+@Service
+public class TokenRevocationService {
+
+    private static final double FALSE_POSITIVE_RATE = 0.001;
+    private static final int SYNC_PAGE_SIZE = 10000;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final Duration accessTokenTtl;
+    private final Duration syncOverlap;
+
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<String, Long> revokedUsers = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloomFilter;
+    // Newest revokedAt loaded so far
+    private volatile long syncedUntil = 0;
+    // Not synchronized: a virtual thread blocked on JDBC inside a monitor pins its carrier
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  @Value("${jwt.access-token.ttl:15m}") Duration accessTokenTtl,
+                                  @Value("${jwt.revocation.expected-size:100000}") long expectedSize,
+                                  @Value("${jwt.revocation.sync-overlap:1m}") Duration syncOverlap) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.accessTokenTtl = accessTokenTtl;
+        this.syncOverlap = syncOverlap;
+        this.bloomFilter = new BloomFilter(expectedSize, FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * O(1) check on the request path; never touches the database.
+     */
+    public boolean isRevoked(VerifiedToken token) {
+        String jti = token.getTokenId();
+        if (jti != null && bloomFilter.mightContain(jti) && revokedTokens.containsKey(jti)) {
+            return true;
+        }
+        if (!revokedUsers.isEmpty() && token.getIssuedAt() != null) {
+            Long revokedAt = revokedUsers.get(token.getEmail());
+            // Millisecond issue time, so a login right after a password reset stays valid
+            // while a token from earlier in the same second does not. Tokens without
+            // iat_ms have whole seconds and err towards revoked.
+            return revokedAt != null && token.getIssuedAt().getTime() < revokedAt;
+        }
+        return false;
+    }
+
+    // Logout: revoke one token until it would have expired anyway
+    @Transactional
+    public void revoke(VerifiedToken token) {
+        if (token.getTokenId() == null || revokedTokenRepository.existsByJti(token.getTokenId())) {
+            return;
+        }
+        long expiresAt = token.getExpiration().getTime();
+        revokedTokenRepository.save(RevokedTokenEntity.builder()
+                .jti(token.getTokenId())
+                .email(token.getEmail())
+                .revokedAt(System.currentTimeMillis())
+                .expiresAt(expiresAt)
+                .build());
+        addToken(token.getTokenId(), expiresAt);
+    }
+
+    // Sign out everywhere: every access token issued until now becomes invalid
+    @Transactional
+    public void revokeAllForUser(String email) {
+        long now = System.currentTimeMillis();
+        revokedTokenRepository.save(RevokedTokenEntity.builder()
+                .email(email)
+                .revokedAt(now)
+                .expiresAt(now + accessTokenTtl.toMillis())
+                .build());
+        addUser(email, now);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        sync();
+        log.info("Loaded {} revoked token(s) and {} user revocation(s)",
+                revokedTokens.size(), revokedUsers.size());
+    }
+
+    // Pull revocations written by other instances
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval:PT5S}",
+            initialDelayString = "${jwt.revocation.sync-interval:PT5S}")
+    public void sync() {
+        syncLock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            long from = Math.max(0, syncedUntil - syncOverlap.toMillis());
+            Pageable page = PageRequest.of(0, SYNC_PAGE_SIZE, Sort.by("revokedAt", "id"));
+            Slice<RevokedTokenEntity> rows;
+            do {
+                rows = revokedTokenRepository
+                        .findByRevokedAtGreaterThanEqualAndExpiresAtGreaterThan(from, now, page);
+                for (RevokedTokenEntity row : rows) {
+                    // The overlap window returns rows already loaded
+                    if (row.getJti() != null) {
+                        if (!revokedTokens.containsKey(row.getJti())) {
+                            addToken(row.getJti(), row.getExpiresAt());
+                        }
+                    } else {
+                        addUser(row.getEmail(), row.getRevokedAt());
+                    }
+                    syncedUntil = Math.max(syncedUntil, row.getRevokedAt());
+                }
+                page = rows.nextPageable();
+            } while (rows.hasNext());
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Drop entries whose tokens have expired and rebuild the Bloom filter,
+     * since Bloom filters cannot remove entries.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.prune-interval:PT10M}")
+    @Transactional
+    public void prune() {
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt < now);
+        revokedUsers.values().removeIf(revokedAt -> revokedAt + accessTokenTtl.toMillis() < now);
+
+        BloomFilter rebuilt = new BloomFilter(Math.max(revokedTokens.size() * 2L, 1024), FALSE_POSITIVE_RATE);
+        revokedTokens.keySet().forEach(rebuilt::put);
+        bloomFilter = rebuilt;
+        // Tokens revoked while rebuilding
+        revokedTokens.keySet().forEach(rebuilt::put);
+
+        revokedTokenRepository.deleteExpired(now);
+    }
+
+    public int getRevokedTokenCount() {
+        return revokedTokens.size();
+    }
+
+    private void addToken(String jti, long expiresAt) {
+        // Exact set first so a Bloom hit is always backed by an entry
+        revokedTokens.put(jti, expiresAt);
+        BloomFilter filter = bloomFilter;
+        filter.put(jti);
+        if (filter != bloomFilter) {
+            // Filter was swapped by prune() meanwhile
+            bloomFilter.put(jti);
+        }
+    }
+
+    private void addUser(String email, long revokedAt) {
+        revokedUsers.merge(email, revokedAt, Math::max);
+    }
+}
@@ -0,0 +1,125 @@
+package com.mahesh.auth.auth_service.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Bounded, time-evicting cache of users keyed by email.
+ * Entries are stored as immutable snapshots and a fresh principal is returned
+ * on every read, because Spring Security erases credentials on the instance
+ * it authenticates.
+ *
+ * Misses are loaded outside the map's lock: a virtual thread that waits for a
+ * JDBC connection inside ConcurrentHashMap.compute pins its carrier, and with
+ * a few carriers pinned the threads holding connections never get to run.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final boolean enabled;
+    private final AsyncCache<String, CachedUser> cache;
+
+    public UserDetailsCache(
+            @Value("${auth.user-cache.enabled:true}") boolean enabled,
+            @Value("${auth.user-cache.max-size:10000}") long maxSize,
+            @Value("${auth.user-cache.ttl:5m}") Duration ttl) {
+
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+    }
+
+    public AppUserPrincipal get(String email, Function<String, AppUserPrincipal> loader) {
+        if (!enabled) {
+            return loader.apply(email);
+        }
+        // Only the caller whose future was installed loads; concurrent misses wait on it
+        CompletableFuture<CachedUser> loading = new CompletableFuture<>();
+        CompletableFuture<CachedUser> cached = cache.get(email, (key, executor) -> loading);
+        if (cached == loading) {
+            try {
+                CachedUser user = CachedUser.of(loader.apply(email));
+                loading.complete(user);
+                return user.toPrincipal();
+            } finally {
+                // A null value drops the entry without logging the failure
+                loading.complete(null);
+            }
+        }
+        CachedUser user = cached.join();
+        return user != null ? user.toPrincipal() : loader.apply(email);
+    }
+
+    /**
+     * Must be called whenever the password or verification state changes.
+     * Inside a transaction the entry is dropped again after commit: a login
+     * between the write and the commit would otherwise re-cache the old row.
+     */
+    public void invalidate(String email) {
+        if (email == null) {
+            return;
+        }
+        cache.synchronous().invalidate(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.synchronous().invalidate(email);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    // Hit / miss / eviction counters
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    public Cache<String, ?> getNativeCache() {
+        return cache.synchronous();
+    }
+
+    private record CachedUser(String email,
+                              String password,
+                              List<GrantedAuthority> authorities,
+                              String userId,
+                              String name,
+                              Boolean isAccountVerified) {
+
+        static CachedUser of(AppUserPrincipal principal) {
+            Collection<GrantedAuthority> authorities = principal.getAuthorities();
+            return new CachedUser(
+                    principal.getUsername(),
+                    principal.getPassword(),
+                    List.copyOf(authorities),
+                    principal.getUserId(),
+                    principal.getName(),
+                    principal.getIsAccountVerified()
+            );
+        }
+
+        AppUserPrincipal toPrincipal() {
+            return new AppUserPrincipal(email, password, authorities, userId, name, isAccountVerified);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.mahesh.auth.auth_service.service;
+
+import com.mahesh.auth.auth_service.io.ImportReport;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Command-line bulk import, e.g.
+ *
+ *   java -jar auth-service.jar --spring.main.web-application-type=none \
+ *        --auth.import.file=users.ndjson --auth.import.send-welcome=false
+ *
+ * Exits when done: 0 if every row was imported, 1 otherwise.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "auth.import.file")
+public class UserImportRunner implements ApplicationRunner {
+
+    private final UserImportService userImportService;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${auth.import.file}")
+    private String file;
+
+    @Value("${auth.import.send-welcome:false}")
+    private boolean sendWelcome;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+
+        Path path = Path.of(file);
+        ImportReport report;
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            report = userImportService.importUsers(reader,
+                    UserImportService.Format.fromFileName(path.getFileName().toString()), sendWelcome);
+        }
+
+        for (ImportReport.RowError error : report.getErrors()) {
+            log.warn("Import line {} ({}): {}", error.line(), error.email(), error.message());
+        }
+        log.info("Imported {} of {} user(s), {} failed, in {} ms ({} rows/s)",
+                report.getImported(), report.getTotal(), report.getFailed(),
+                report.getElapsedMillis(), String.format("%.0f", report.getRowsPerSecond()));
+
+        int exitCode = report.getFailed() == 0 ? 0 : 1;
+        System.exit(SpringApplication.exit(context, () -> exitCode));
+    }
+}
@@ -0,0 +1,329 @@
+package com.mahesh.auth.auth_service.service;
+
+import com.mahesh.auth.auth_service.config.BoundedPasswordEncoder;
+import com.mahesh.auth.auth_service.config.UserShards;
+import com.mahesh.auth.auth_service.entity.UserEntity;
+import com.mahesh.auth.auth_service.io.ImportReport;
+import com.mahesh.auth.auth_service.io.ProfileRequest;
+import com.mahesh.auth.auth_service.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads users in bulk from NDJSON or CSV.
+ * Input is streamed in chunks: each chunk is validated, checked for
+ * existing emails with one query, hashed in parallel on a dedicated pool
+ * (not the login hashing pool) and inserted in one transaction, which
+ * Hibernate sends as JDBC batches. If a batch still hits a constraint, that
+ * chunk is retried row by row so every failure is reported against its line.
+ */
+@Slf4j
+@Service
+public class UserImportService {
+
+    public enum Format {
+        NDJSON, CSV;
+
+        public static Format fromFileName(String fileName) {
+            return fileName.toLowerCase(Locale.ROOT).endsWith(".csv") ? CSV : NDJSON;
+        }
+    }
+
+    private record Row(long line, ProfileRequest request) {
+    }
+
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final EmailService emailService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final UserShards userShards;
+
+    private final int chunkSize;
+    private final int hashThreads;
+    private final int maxReportedErrors;
+
+    public UserImportService(
+            UserRepository userRepository,
+            EntityManager entityManager,
+            TransactionTemplate transactionTemplate,
+            BoundedPasswordEncoder passwordEncoder,
+            EmailService emailService,
+            Validator validator,
+            ObjectMapper objectMapper,
+            UserShards userShards,
+            @Value("${auth.import.chunk-size:1000}") int chunkSize,
+            @Value("${auth.import.hash-threads:0}") int hashThreads,
+            @Value("${auth.import.max-reported-errors:1000}") int maxReportedErrors) {
+
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.passwordEncoder = passwordEncoder.getDelegate();
+        this.emailService = emailService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.userShards = userShards;
+        this.chunkSize = chunkSize;
+        this.hashThreads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public ImportReport importUsers(Reader input, Format format, boolean sendWelcomeEmails) throws IOException {
+
+        long start = System.nanoTime();
+        Progress progress = new Progress();
+        Set<String> seenEmails = new HashSet<>();
+
+        try (ExecutorService hashPool = Executors.newFixedThreadPool(hashThreads,
+                Thread.ofPlatform().name("import-hash-", 1).daemon(true).factory());
+             BufferedReader reader = new BufferedReader(input)) {
+
+            List<Row> chunk = new ArrayList<>(chunkSize);
+            String[] header = null;
+            String line;
+            long lineNumber = 0;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && header == null) {
+                    header = parseCsvLine(line);
+                    continue;
+                }
+
+                progress.total++;
+                try {
+                    ProfileRequest request = format == Format.CSV
+                            ? fromCsv(header, parseCsvLine(line))
+                            : objectMapper.readValue(line, ProfileRequest.class);
+                    chunk.add(new Row(lineNumber, request));
+                } catch (JacksonException | IllegalArgumentException ex) {
+                    progress.fail(lineNumber, null, "Unparseable row: " + ex.getMessage());
+                }
+
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, seenEmails, hashPool, sendWelcomeEmails, progress);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(chunk, seenEmails, hashPool, sendWelcomeEmails, progress);
+            }
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        return new ImportReport(progress.total, progress.imported, progress.failed,
+                elapsedMillis, progress.errors);
+    }
+
+    private void importChunk(List<Row> chunk, Set<String> seenEmails, ExecutorService hashPool,
+                             boolean sendWelcomeEmails, Progress progress) {
+
+        // 1️⃣ Validate and drop duplicates within the file
+        List<Row> valid = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            Set<ConstraintViolation<ProfileRequest>> violations = validator.validate(row.request());
+            if (!violations.isEmpty()) {
+                progress.fail(row.line(), row.request().getEmail(), violations.iterator().next().getMessage());
+            } else if (!seenEmails.add(row.request().getEmail().toLowerCase(Locale.ROOT))) {
+                progress.fail(row.line(), row.request().getEmail(), "Duplicate email in input");
+            } else {
+                valid.add(row);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        // 2️⃣ One query (per shard) for emails that are already registered
+        Set<String> existing = new HashSet<>();
+        byShard(valid).forEach((shard, rows) -> {
+            List<String> emails = rows.stream().map(r -> r.request().getEmail()).toList();
+            for (String email : userShards.onShard(shard, () -> userRepository.findExistingEmails(emails))) {
+                existing.add(email.toLowerCase(Locale.ROOT));
+            }
+        });
+        valid.removeIf(row -> {
+            if (existing.contains(row.request().getEmail().toLowerCase(Locale.ROOT))) {
+                progress.fail(row.line(), row.request().getEmail(), "Email already exists");
+                return true;
+            }
+            return false;
+        });
+
+        // 3️⃣ Hash in parallel
+        List<Future<String>> hashes = new ArrayList<>(valid.size());
+        for (Row row : valid) {
+            hashes.add(hashPool.submit(() -> passwordEncoder.encode(row.request().getPassword())));
+        }
+        Map<Row, UserEntity> entities = new HashMap<>();
+        List<Row> hashed = new ArrayList<>(valid.size());
+        for (int i = 0; i < valid.size(); i++) {
+            Row row = valid.get(i);
+            try {
+                entities.put(row, toEntity(row.request(), hashes.get(i).get()));
+                hashed.add(row);
+            } catch (ExecutionException ex) {
+                progress.fail(row.line(), row.request().getEmail(), "Hashing failed: " + ex.getCause().getMessage());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while hashing passwords", ex);
+            }
+        }
+
+        // 4️⃣ Batched insert (per shard)
+        List<Row> inserted = new ArrayList<>(hashed.size());
+        byShard(hashed).forEach((shard, rows) ->
+                inserted.addAll(userShards.onShard(shard, () -> insertRows(rows, entities, progress))));
+        progress.imported += inserted.size();
+
+        // 5️⃣ Optional welcome emails
+        if (sendWelcomeEmails) {
+            for (Row row : inserted) {
+                emailService.sendWelcomeEmail(row.request().getEmail(), row.request().getName());
+            }
+        }
+    }
+
+    // On a constraint hit, fall back to one row at a time
+    private List<Row> insertRows(List<Row> rows, Map<Row, UserEntity> entities, Progress progress) {
+        try {
+            insert(rows.stream().map(entities::get).toList());
+            return rows;
+        } catch (DataIntegrityViolationException ex) {
+            List<Row> inserted = new ArrayList<>(rows.size());
+            for (Row row : rows) {
+                UserEntity entity = entities.get(row);
+                entity.setId(null);
+                try {
+                    insert(List.of(entity));
+                    inserted.add(row);
+                } catch (DataIntegrityViolationException rowEx) {
+                    progress.fail(row.line(), row.request().getEmail(), "Email already exists");
+                }
+            }
+            return inserted;
+        }
+    }
+
+    // A single group (shard 0) unless sharding is enabled
+    private Map<Integer, List<Row>> byShard(List<Row> rows) {
+        Map<Integer, List<Row>> groups = new TreeMap<>();
+        for (Row row : rows) {
+            groups.computeIfAbsent(userShards.shardOf(row.request().getEmail()), shard -> new ArrayList<>()).add(row);
+        }
+        return groups;
+    }
+
+    private void insert(List<UserEntity> users) {
+        transactionTemplate.executeWithoutResult(status -> {
+            userRepository.saveAll(users);
+            userRepository.flush();
+            // Keep the persistence context from growing across chunks
+            entityManager.clear();
+        });
+    }
+
+    private UserEntity toEntity(ProfileRequest request, String passwordHash) {
+        return UserEntity.builder()
+                .userId(userShards.newUserId(request.getEmail()))
+                .name(request.getName())
+                .email(request.getEmail())
+                .password(passwordHash)
+                .isAccountVerified(false)
+                .build();
+    }
+
+    private static ProfileRequest fromCsv(String[] header, String[] values) {
+        ProfileRequest request = new ProfileRequest();
+        for (int i = 0; i < header.length && i < values.length; i++) {
+            switch (header[i].trim().toLowerCase(Locale.ROOT)) {
+                case "name" -> request.setName(values[i]);
+                case "email" -> request.setEmail(values[i]);
+                case "password" -> request.setPassword(values[i]);
+                default -> {
+                    // Extra columns are ignored
+                }
+            }
+        }
+        return request;
+    }
+
+    // RFC 4180 fields on a single line: commas inside "..." and "" as an escaped quote
+    static String[] parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quote");
+        }
+        fields.add(field.toString());
+        return fields.toArray(String[]::new);
+    }
+
+    private final class Progress {
+
+        private long total;
+        private long imported;
+        private long failed;
+        private final List<ImportReport.RowError> errors = new ArrayList<>();
+
+        private void fail(long line, String email, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ImportReport.RowError(line, email, message));
+            }
+        }
+    }
+}
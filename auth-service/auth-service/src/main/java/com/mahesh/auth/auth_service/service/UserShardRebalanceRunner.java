@@ -0,0 +1,39 @@
+package com.mahesh.auth.auth_service.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Command-line shard rebalancing after a layout change, e.g.
+ *
+ *   java -jar auth-service.jar --spring.main.web-application-type=none \
+ *        --auth.sharding.enabled=true --auth.sharding.rebalance=true
+ *
+ * Exits when done.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = {"auth.sharding.enabled", "auth.sharding.rebalance"}, havingValue = "true")
+public class UserShardRebalanceRunner implements ApplicationRunner {
+
+    private final UserShardRebalancer userShardRebalancer;
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+
+        long start = System.nanoTime();
+        UserShardRebalancer.Result result = userShardRebalancer.rebalance();
+        log.info("Rebalanced shards: scanned {} user(s), moved {} in {} ms",
+                result.scanned(), result.moved(), (System.nanoTime() - start) / 1_000_000);
+
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
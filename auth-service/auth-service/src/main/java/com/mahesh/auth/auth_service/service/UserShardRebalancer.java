@@ -0,0 +1,146 @@
+package com.mahesh.auth.auth_service.service;
+
+import com.mahesh.auth.auth_service.config.UserShards;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Moves users onto the shard the current auth.sharding.layout assigns them.
+ *
+ * Every shard is scanned by id; rows whose email now maps elsewhere are
+ * copied to the target shard and then deleted from the source, each step
+ * in its own transaction. A run interrupted between the two steps is
+ * completed by the next run (rows already on the target are not copied
+ * again). Pending OTPs of moved users are dropped; they can request new ones.
+ *
+ * Also reserves each shard's id range (tbl_users_seq starts at
+ * shard * {@link UserShards#ID_RANGE}) so ids stay unique across shards.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "auth.sharding.enabled", havingValue = "true")
+public class UserShardRebalancer {
+
+    public record Result(long scanned, long moved) {
+    }
+
+    private final UserShards userShards;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public UserShardRebalancer(
+            UserShards userShards,
+            DataSource dataSource,
+            PlatformTransactionManager transactionManager,
+            @Value("${auth.sharding.rebalance-chunk-size:500}") int chunkSize) {
+
+        this.userShards = userShards;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public Result rebalance() {
+
+        long scanned = 0;
+        long moved = 0;
+
+        for (int shard = 0; shard < userShards.getShardCount(); shard++) {
+            reserveIdRange(shard);
+
+            long lastId = Long.MIN_VALUE;
+            while (true) {
+                long after = lastId;
+                List<Map<String, Object>> rows = userShards.onShard(shard, () -> jdbcTemplate.queryForList(
+                        "SELECT * FROM tbl_users WHERE id > ? ORDER BY id LIMIT ?", after, chunkSize));
+                if (rows.isEmpty()) {
+                    break;
+                }
+                scanned += rows.size();
+                lastId = ((Number) rows.get(rows.size() - 1).get("id")).longValue();
+
+                // Rows that belong elsewhere, by target shard
+                Map<Integer, List<Map<String, Object>>> misplaced = new TreeMap<>();
+                for (Map<String, Object> row : rows) {
+                    int target = userShards.shardOf((String) row.get("email"));
+                    if (target != shard) {
+                        misplaced.computeIfAbsent(target, t -> new ArrayList<>()).add(row);
+                    }
+                }
+                for (Map.Entry<Integer, List<Map<String, Object>>> entry : misplaced.entrySet()) {
+                    copy(entry.getKey(), entry.getValue());
+                    remove(shard, entry.getValue());
+                    moved += entry.getValue().size();
+                    log.info("Moved {} user(s) from shard {} to shard {}", entry.getValue().size(), shard, entry.getKey());
+                }
+
+                if (rows.size() < chunkSize) {
+                    break;
+                }
+            }
+        }
+        return new Result(scanned, moved);
+    }
+
+    private void copy(int target, List<Map<String, Object>> rows) {
+        List<String> columns = new ArrayList<>(rows.get(0).keySet());
+        String sql = "INSERT INTO tbl_users (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", columns.stream().map(c -> "?").toList()) + ")";
+
+        userShards.onShard(target, () -> transactionTemplate.execute(status -> {
+            List<Object[]> batch = new ArrayList<>(rows.size());
+            for (Map<String, Object> row : rows) {
+                Integer present = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM tbl_users WHERE email = ?", Integer.class, row.get("email"));
+                if (present == null || present == 0) {
+                    batch.add(columns.stream().map(row::get).toArray());
+                }
+            }
+            return jdbcTemplate.batchUpdate(sql, batch);
+        }));
+    }
+
+    private void remove(int source, List<Map<String, Object>> rows) {
+        List<Object[]> users = new ArrayList<>(rows.size());
+        List<Object[]> otps = new ArrayList<>(rows.size() * OtpStore.Purpose.values().length);
+        for (Map<String, Object> row : rows) {
+            users.add(new Object[]{row.get("id")});
+            for (OtpStore.Purpose purpose : OtpStore.Purpose.values()) {
+                otps.add(new Object[]{purpose.name() + ':' + row.get("email")});
+            }
+        }
+
+        userShards.onShard(source, () -> transactionTemplate.execute(status -> {
+            jdbcTemplate.batchUpdate("DELETE FROM tbl_otps WHERE id = ?", otps);
+            return jdbcTemplate.batchUpdate("DELETE FROM tbl_users WHERE id = ?", users);
+        }));
+    }
+
+    // tbl_users_seq is Hibernate's sequence table on MySQL (single next_val column)
+    private void reserveIdRange(int shard) {
+        if (shard == UserShards.HOME_SHARD) {
+            return;
+        }
+        long floor = shard * UserShards.ID_RANGE;
+        try {
+            userShards.onShard(shard, () -> transactionTemplate.execute(status -> jdbcTemplate.update(
+                    "UPDATE tbl_users_seq SET next_val = ? WHERE next_val < ?", floor, floor)));
+        } catch (DataAccessException ex) {
+            log.warn("Could not reserve id range on shard {}; start its tbl_users_seq at {} manually: {}",
+                    shard, floor, ex.getMessage());
+        }
+    }
+}
@@ -1,47 +1,99 @@
 package com.mahesh.auth.auth_service.util;
 
+import com.mahesh.auth.auth_service.service.AppUserPrincipal;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
+import java.time.Duration;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret.key}")
-    private String SECRET_KEY;
+    // Parser is built once (immutable and thread-safe); keys come from the ring by kid
+    private final SigningKeyRing signingKeyRing;
+    private final JwtParser jwtParser;
 
-    // Create signing key (IMPORTANT)
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+    // Access tokens are short-lived; sessions are extended via refresh tokens
+    private final Duration accessTokenTtl;
+
+    public JwtUtil(SigningKeyRing signingKeyRing,
+                   @Value("${jwt.access-token.ttl:15m}") Duration accessTokenTtl) {
+        this.accessTokenTtl = accessTokenTtl;
+        this.signingKeyRing = signingKeyRing;
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(signingKeyRing)
+                .build();
     }
 
+    // Custom claims used for stateless authentication
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_NAME = "name";
+    public static final String CLAIM_VERIFIED = "verified";
+    public static final String CLAIM_ROLES = "roles";
+    // iat in milliseconds; the standard iat has whole seconds, too coarse for revocation checks
+    public static final String CLAIM_ISSUED_AT_MILLIS = "iat_ms";
+
     // Generate JWT token
     public String generateToken(UserDetails userDetails) {
+        long now = System.currentTimeMillis();
+        SigningKeyRing.SigningKey key = signingKeyRing.getActive();
+
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_ISSUED_AT_MILLIS, now);
+        claims.put(CLAIM_ROLES, userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList());
+        if (userDetails instanceof AppUserPrincipal principal) {
+            claims.put(CLAIM_USER_ID, principal.getUserId());
+            claims.put(CLAIM_NAME, principal.getName());
+            claims.put(CLAIM_VERIFIED, principal.getIsAccountVerified());
+        }
+
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, key.kid())
+                .setClaims(claims)
                 .setSubject(userDetails.getUsername())
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(
-                        new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 24) // 1 day
-                )
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .setId(UUID.randomUUID().toString()) // jti, used for revocation
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + accessTokenTtl.toMillis()))
+                .signWith(key.signingKey(), key.algorithm())
                 .compact();
     }
 
+    public Duration getAccessTokenTtl() {
+        return accessTokenTtl;
+    }
+
+    /**
+     * Verify signature and expiry in one parse.
+     * Throws {@link io.jsonwebtoken.JwtException} if the token is invalid or expired.
+     */
+    public VerifiedToken verifyToken(String token) {
+        Claims claims = extractAllClaims(token);
+        Long issuedAtMillis = claims.get(CLAIM_ISSUED_AT_MILLIS, Long.class);
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.getId(),
+                issuedAtMillis != null ? new Date(issuedAtMillis) : claims.getIssuedAt(),
+                claims.getExpiration(),
+                claims
+        );
+    }
+
     // Extract all claims
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return jwtParser.parseClaimsJws(token).getBody();
     }
 
     // Generic claim extractor
@@ -59,13 +111,14 @@ public class JwtUtil {
         return extractClaim(token, Claims::getExpiration);
     }
 
-    // Check token expiry
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    // Validate token
+    // Validate token (parser already rejects expired tokens)
     public boolean validateToken(String token, String email) {
-        return extractEmail(token).equals(email) && !isTokenExpired(token);
+        try {
+            VerifiedToken verified = verifyToken(token);
+            return verified.getEmail().equals(email)
+                    && verified.getExpiration().after(new Date());
+        } catch (Exception ex) {
+            return false;
+        }
     }
 }
@@ -0,0 +1,327 @@
+package com.mahesh.auth.auth_service.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keys used to sign and verify JWTs.
+ *
+ * HS256 (default) signs with jwt.secret.key, as before. ES256/RS256 load
+ * every key entry of a PKCS12 keystore: the alias is the kid, and older
+ * entries stay valid for verification until they are removed from the
+ * keystore. The keystore is re-read when the file changes, so a key can be
+ * rotated without a restart while tokens signed with the previous key keep
+ * working.
+ *
+ * A new key is published in the JWKS right away but only signs once it has
+ * been published for jwt.signing.activation-delay, so clients holding a
+ * cached JWKS never see an unknown kid. The delay counts from the keystore
+ * entry's creation date, or from when a running instance first loaded it if
+ * that is later. jwt.signing.active-kid pins the signing key instead.
+ */
+@Slf4j
+@Component
+public class SigningKeyRing extends SigningKeyResolverAdapter {
+
+    public record SigningKey(String kid,
+                             SignatureAlgorithm algorithm,
+                             Key signingKey,
+                             Key verificationKey,
+                             Date createdAt) {
+
+        boolean isAsymmetric() {
+            return verificationKey instanceof PublicKey;
+        }
+    }
+
+    private final SignatureAlgorithm algorithm;
+    private final String keystorePath;
+    private final char[] keystorePassword;
+    private final String activeKid;
+    private final Duration activationDelay;
+
+    // Verifies tokens issued before kid headers existed (no kid, HS256), until the cut-off
+    private final Key legacySecretKey;
+    private final Instant legacyTokensUntil;
+
+    private volatile SigningKey active;
+    private volatile Map<String, SigningKey> keys = Map.of();
+    // kid → epoch millis from which the key counts as published
+    private Map<String, Long> publishedAt = Map.of();
+    private volatile String jwksEtag = "\"empty\"";
+    private volatile long keystoreModified = -1;
+
+    public SigningKeyRing(
+            @Value("${jwt.secret.key:}") String secretKey,
+            @Value("${jwt.signing.algorithm:HS256}") String algorithm,
+            @Value("${jwt.signing.keystore.path:}") String keystorePath,
+            @Value("${jwt.signing.keystore.password:}") String keystorePassword,
+            @Value("${jwt.signing.active-kid:}") String activeKid,
+            @Value("${jwt.signing.activation-delay:10m}") Duration activationDelay,
+            @Value("${jwt.signing.legacy-tokens-until:}") String legacyTokensUntil) {
+
+        this.algorithm = SignatureAlgorithm.forName(algorithm);
+        this.keystorePath = keystorePath;
+        this.keystorePassword = keystorePassword.toCharArray();
+        this.activeKid = activeKid;
+        this.activationDelay = activationDelay;
+        this.legacySecretKey = secretKey.isEmpty()
+                ? null
+                : Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        this.legacyTokensUntil = legacyTokensUntil.isEmpty() ? null : Instant.parse(legacyTokensUntil);
+
+        if (this.algorithm.isHmac()) {
+            if (legacySecretKey == null) {
+                throw new IllegalStateException("jwt.secret.key is required for " + algorithm);
+            }
+            install(List.of(new SigningKey("hs-1", this.algorithm, legacySecretKey, legacySecretKey, new Date(0))),
+                    true);
+        } else if (keystorePath.isEmpty()) {
+            log.warn("No jwt.signing.keystore.path set; using an ephemeral {} key (tokens will not survive a restart)",
+                    algorithm);
+            KeyPair pair = Keys.keyPairFor(this.algorithm);
+            install(List.of(new SigningKey(UUID.randomUUID().toString(), this.algorithm,
+                    pair.getPrivate(), pair.getPublic(), new Date())), true);
+        } else {
+            reloadIfChanged();
+        }
+    }
+
+    public SigningKey getActive() {
+        return active;
+    }
+
+    public String getJwksEtag() {
+        return jwksEtag;
+    }
+
+    // Used by the shared JwtParser to pick the key from the token's kid header
+    @Override
+    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+        String kid = header.getKeyId();
+        if (kid == null) {
+            if (legacySecretKey == null || legacyTokensUntil == null || Instant.now().isAfter(legacyTokensUntil)) {
+                throw new JwtException("Token has no key id");
+            }
+            return legacySecretKey;
+        }
+        SigningKey key = keys.get(kid);
+        if (key == null) {
+            throw new JwtException("Unknown key id: " + kid);
+        }
+        return key.verificationKey();
+    }
+
+    /**
+     * Public keys as a JWK set. Symmetric keys are never published.
+     */
+    public List<Map<String, Object>> publicJwks() {
+        List<Map<String, Object>> jwks = new ArrayList<>();
+        for (SigningKey key : keys.values()) {
+            if (!key.isAsymmetric()) {
+                continue;
+            }
+            Map<String, Object> jwk = new LinkedHashMap<>();
+            jwk.put("kid", key.kid());
+            jwk.put("use", "sig");
+            jwk.put("alg", key.algorithm().getValue());
+            if (key.verificationKey() instanceof ECPublicKey ec) {
+                int size = (ec.getParams().getCurve().getField().getFieldSize() + 7) / 8;
+                jwk.put("kty", "EC");
+                jwk.put("crv", "P-" + ec.getParams().getCurve().getField().getFieldSize());
+                jwk.put("x", base64Url(ec.getW().getAffineX(), size));
+                jwk.put("y", base64Url(ec.getW().getAffineY(), size));
+            } else if (key.verificationKey() instanceof RSAPublicKey rsa) {
+                jwk.put("kty", "RSA");
+                jwk.put("n", base64Url(rsa.getModulus(), 0));
+                jwk.put("e", base64Url(rsa.getPublicExponent(), 0));
+            }
+            jwks.add(jwk);
+        }
+        return jwks;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.signing.reload-interval:PT1M}")
+    public synchronized void reloadIfChanged() {
+        if (!keystorePath.isEmpty()) {
+            reloadKeystore();
+        }
+        // Keys published earlier may have become old enough to sign
+        selectActive();
+    }
+
+    private void reloadKeystore() {
+        Path path = Path.of(keystorePath);
+        try {
+            long modified = Files.getLastModifiedTime(path).toMillis();
+            if (modified == keystoreModified) {
+                return;
+            }
+            install(loadKeystore(path), active == null);
+            keystoreModified = modified;
+            log.info("Loaded {} signing key(s), active kid {}", keys.size(), active.kid());
+        } catch (IOException | GeneralSecurityException | IllegalStateException ex) {
+            if (active == null) {
+                throw new IllegalStateException("Unable to load JWT signing keystore " + keystorePath, ex);
+            }
+            // Keep serving with the previous ring
+            log.error("Unable to reload JWT signing keystore {}", keystorePath, ex);
+        }
+    }
+
+    private List<SigningKey> loadKeystore(Path path) throws IOException, GeneralSecurityException {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(path)) {
+            keyStore.load(in, keystorePassword);
+        }
+
+        List<SigningKey> loaded = new ArrayList<>();
+        for (String alias : Collections.list(keyStore.aliases())) {
+            if (!keyStore.isKeyEntry(alias)) {
+                continue;
+            }
+            PrivateKey privateKey = (PrivateKey) keyStore.getKey(alias, keystorePassword);
+            PublicKey publicKey = keyStore.getCertificate(alias).getPublicKey();
+            loaded.add(new SigningKey(alias, algorithmFor(publicKey), privateKey, publicKey,
+                    keyStore.getCreationDate(alias)));
+        }
+        return loaded;
+    }
+
+    private SignatureAlgorithm algorithmFor(PublicKey publicKey) {
+        if (publicKey instanceof ECPublicKey ec) {
+            return switch (ec.getParams().getCurve().getField().getFieldSize()) {
+                case 384 -> SignatureAlgorithm.ES384;
+                case 521 -> SignatureAlgorithm.ES512;
+                default -> SignatureAlgorithm.ES256;
+            };
+        }
+        if (publicKey instanceof RSAPublicKey) {
+            return algorithm.isRsa() ? algorithm : SignatureAlgorithm.RS256;
+        }
+        throw new IllegalStateException("Unsupported key type " + publicKey.getAlgorithm());
+    }
+
+    // Startup keys count as published from their creation date; keys added by
+    // a reload count from now, since this is when this instance starts serving them
+    synchronized void install(List<SigningKey> ring, boolean startup) {
+        if (ring.isEmpty()) {
+            throw new IllegalStateException("No signing keys found");
+        }
+
+        long now = System.currentTimeMillis();
+        Map<String, SigningKey> byKid = new LinkedHashMap<>();
+        Map<String, Long> published = new HashMap<>();
+        for (SigningKey key : ring) {
+            byKid.put(key.kid(), key);
+            long since = key.createdAt().getTime();
+            if (!startup) {
+                since = Math.max(since, publishedAt.getOrDefault(key.kid(), now));
+            }
+            published.put(key.kid(), since);
+        }
+        if (!activeKid.isEmpty() && !byKid.containsKey(activeKid)) {
+            throw new IllegalStateException("Active kid " + activeKid + " not found");
+        }
+
+        keys = Collections.unmodifiableMap(byKid);
+        publishedAt = published;
+        jwksEtag = computeEtag(byKid);
+        selectActive();
+    }
+
+    // Newest key published for at least the activation delay; the newest key
+    // overall when none is (a fresh ring has nothing else to sign with)
+    private void selectActive() {
+        SigningKey selected;
+        if (!activeKid.isEmpty()) {
+            selected = keys.get(activeKid);
+        } else {
+            long readyBefore = System.currentTimeMillis() - activationDelay.toMillis();
+            SigningKey newest = null;
+            SigningKey newestReady = null;
+            for (SigningKey key : keys.values()) {
+                if (newest == null || key.createdAt().after(newest.createdAt())) {
+                    newest = key;
+                }
+                if (publishedAt.get(key.kid()) <= readyBefore
+                        && (newestReady == null || key.createdAt().after(newestReady.createdAt()))) {
+                    newestReady = key;
+                }
+            }
+            selected = newestReady != null ? newestReady : newest;
+        }
+
+        if (active != null && !active.kid().equals(selected.kid())) {
+            log.info("Signing key changed from kid {} to {}", active.kid(), selected.kid());
+        }
+        active = selected;
+    }
+
+    private static String computeEtag(Map<String, SigningKey> byKid) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (SigningKey key : byKid.values()) {
+                if (key.isAsymmetric()) {
+                    digest.update(key.kid().getBytes(StandardCharsets.UTF_8));
+                    digest.update(key.verificationKey().getEncoded());
+                }
+            }
+            return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    // Unsigned big-endian, left-padded to size bytes when size > 0
+    private static String base64Url(BigInteger value, int size) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            byte[] trimmed = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, trimmed, 0, trimmed.length);
+            bytes = trimmed;
+        }
+        if (size > bytes.length) {
+            byte[] padded = new byte[size];
+            System.arraycopy(bytes, 0, padded, size - bytes.length, bytes.length);
+            bytes = padded;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
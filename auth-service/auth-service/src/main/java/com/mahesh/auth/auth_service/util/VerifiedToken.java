@@ -0,0 +1,23 @@
+package com.mahesh.auth.auth_service.util;
+
+import io.jsonwebtoken.Claims;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * Result of a single signature + expiry check on a JWT.
+ * Holds the claims so callers never need to parse the token again.
+ */
+@Getter
+@AllArgsConstructor
+public class VerifiedToken {
+
+    private final String email;
+    private final String tokenId;
+    // Millisecond precision, except for tokens issued without the iat_ms claim
+    private final Date issuedAt;
+    private final Date expiration;
+    private final Claims claims;
+}
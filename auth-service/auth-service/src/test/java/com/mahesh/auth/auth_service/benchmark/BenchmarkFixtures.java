@@ -0,0 +1,78 @@
+package com.mahesh.auth.auth_service.benchmark;
+
+import com.mahesh.auth.auth_service.entity.UserEntity;
+import com.mahesh.auth.auth_service.repository.UserCredentials;
+import com.mahesh.auth.auth_service.repository.UserProfileView;
+import com.mahesh.auth.auth_service.repository.UserRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+
+/**
+ * Shared fixtures for the benchmarks. The repository stub is a plain proxy
+ * so that mocking-framework overhead does not show up in the numbers.
+ */
+final class BenchmarkFixtures {
+
+    static final String SECRET = "benchmark-secret-key-with-at-least-32-bytes!!";
+    static final String EMAIL = "bench@example.com";
+
+    private BenchmarkFixtures() {
+    }
+
+    static UserEntity user(String encodedPassword) {
+        return UserEntity.builder()
+                .id(1L)
+                .userId("5b0f6c1e-3d4a-4c1b-9a57-1f2e3d4c5b6a")
+                .name("Bench User")
+                .email(EMAIL)
+                .password(encodedPassword)
+                .isAccountVerified(true)
+                .build();
+    }
+
+    // Lookups, existsByEmail and saves are answered in memory; everything else is unsupported
+    static UserRepository repositoryReturning(UserEntity user) {
+        return (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findCredentialsByEmail" -> Optional.of(new UserCredentials(
+                            user.getUserId(), user.getName(), user.getEmail(), user.getPassword(),
+                            user.getIsAccountVerified()));
+                    case "findProfileByEmail" -> Optional.of(new UserProfileView(
+                            user.getUserId(), user.getName(), user.getEmail(), user.getIsAccountVerified(),
+                            user.getUpdatedAt()));
+                    case "findUserIdByEmail" -> Optional.of(user.getUserId());
+                    case "existsByEmail" -> Boolean.FALSE;
+                    case "save", "saveAndFlush" -> args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "StubUserRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    // Runs callbacks directly, for services whose repository is a stub
+    static TransactionTemplate noTransactions() {
+        return new TransactionTemplate(new PlatformTransactionManager() {
+            @Override
+            public TransactionStatus getTransaction(TransactionDefinition definition) {
+                return new SimpleTransactionStatus();
+            }
+
+            @Override
+            public void commit(TransactionStatus status) {
+            }
+
+            @Override
+            public void rollback(TransactionStatus status) {
+            }
+        });
+    }
+}
@@ -0,0 +1,67 @@
+package com.mahesh.auth.auth_service.benchmark;
+
+import com.mahesh.auth.auth_service.service.AppUserPrincipal;
+import com.mahesh.auth.auth_service.util.JwtUtil;
+import com.mahesh.auth.auth_service.util.SigningKeyRing;
+import com.mahesh.auth.auth_service.util.VerifiedToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    @Param({"HS256", "ES256"})
+    private String algorithm;
+
+    private JwtUtil jwtUtil;
+    private AppUserPrincipal principal;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        // ES256 uses an ephemeral key pair
+        SigningKeyRing ring = new SigningKeyRing(BenchmarkFixtures.SECRET, algorithm, "", "", "", Duration.ZERO, "");
+        jwtUtil = new JwtUtil(ring, Duration.ofMinutes(15));
+        principal = new AppUserPrincipal(
+                BenchmarkFixtures.EMAIL, "", List.of(), "user-id", "Bench User", true);
+        token = jwtUtil.generateToken(principal);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(principal);
+    }
+
+    @Benchmark
+    public VerifiedToken verifyToken() {
+        return jwtUtil.verifyToken(token);
+    }
+
+    @Benchmark
+    public String extractEmail() {
+        return jwtUtil.extractEmail(token);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(token, BenchmarkFixtures.EMAIL);
+    }
+}
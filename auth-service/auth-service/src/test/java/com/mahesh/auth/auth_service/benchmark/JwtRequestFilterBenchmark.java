@@ -0,0 +1,97 @@
+package com.mahesh.auth.auth_service.benchmark;
+
+import com.mahesh.auth.auth_service.config.ReadYourWritesTracker;
+import com.mahesh.auth.auth_service.config.UserShards;
+import com.mahesh.auth.auth_service.filter.JwtRequestFilter;
+import com.mahesh.auth.auth_service.service.AppUserDetailsService;
+import com.mahesh.auth.auth_service.service.AppUserPrincipal;
+import com.mahesh.auth.auth_service.service.TokenRevocationService;
+import com.mahesh.auth.auth_service.service.UserDetailsCache;
+import com.mahesh.auth.auth_service.util.JwtUtil;
+import com.mahesh.auth.auth_service.util.TestSigningKeys;
+import com.mahesh.auth.auth_service.util.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full JwtRequestFilter path for one authenticated request (cookie lookup,
+ * verification, principal resolution, SecurityContext population) with a
+ * no-op chain. The DB modes use an in-memory repository stub, so they
+ * measure everything except the SQL round trip itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtRequestFilterBenchmark {
+
+    @Param({"db", "db-user-cache", "stateless", "stateless-token-cache"})
+    private String mode;
+
+    private JwtRequestFilter filter;
+    private Cookie cookie;
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = new JwtUtil(TestSigningKeys.hmac(BenchmarkFixtures.SECRET), Duration.ofMinutes(15));
+
+        boolean userCache = mode.equals("db-user-cache");
+        boolean tokenCache = mode.equals("stateless-token-cache");
+        boolean stateless = mode.startsWith("stateless");
+
+        AppUserDetailsService userDetailsService = new AppUserDetailsService(
+                BenchmarkFixtures.repositoryReturning(BenchmarkFixtures.user("{bcrypt}hash")),
+                new UserDetailsCache(userCache, 1000, Duration.ofMinutes(5)),
+                new ReadYourWritesTracker(false, Duration.ofSeconds(5)),
+                new UserShards(false, new String[0], 1024, "", null)
+        );
+        VerifiedTokenCache verifiedTokenCache =
+                new VerifiedTokenCache(tokenCache, 1000, Duration.ofMinutes(10));
+
+        TokenRevocationService tokenRevocationService =
+                new TokenRevocationService(null, Duration.ofMinutes(15), 1000, Duration.ofMinutes(1));
+
+        filter = new JwtRequestFilter(jwtUtil, verifiedTokenCache, tokenRevocationService,
+                userDetailsService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(filter, "statelessEnabled", stateless);
+
+        String token = jwtUtil.generateToken(new AppUserPrincipal(
+                BenchmarkFixtures.EMAIL, "", List.of(), "user-id", "Bench User", true));
+        cookie = new Cookie("jwt", token);
+    }
+
+    @Benchmark
+    public Object doFilter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/profile");
+        request.setServletPath("/profile");
+        request.setCookies(cookie);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.mahesh.auth.auth_service.benchmark;
+
+import com.mahesh.auth.auth_service.config.PasswordEncoders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one login (matches) and one registration/reset (encode)
+ * per algorithm and BCrypt strength. Pick parameters whose matches()
+ * time fits the p99 login budget.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+    @Param({"bcrypt:10", "bcrypt:12", "bcrypt:14", "argon2:0", "pbkdf2:0"})
+    private String encoder;
+
+    private PasswordEncoder passwordEncoder;
+    private String encodedPassword;
+
+    @Setup
+    public void setUp() {
+        String[] parts = encoder.split(":");
+        int strength = parts[0].equals(PasswordEncoders.BCRYPT) ? Integer.parseInt(parts[1]) : 10;
+        passwordEncoder = PasswordEncoders.delegating(parts[0], strength);
+        encodedPassword = passwordEncoder.encode("correct horse battery");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return passwordEncoder.matches("correct horse battery", encodedPassword);
+    }
+
+    @Benchmark
+    public String encode() {
+        return passwordEncoder.encode("correct horse battery");
+    }
+}
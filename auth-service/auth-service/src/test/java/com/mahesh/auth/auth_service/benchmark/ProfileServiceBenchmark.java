@@ -0,0 +1,93 @@
+package com.mahesh.auth.auth_service.benchmark;
+
+import com.mahesh.auth.auth_service.config.ReadYourWritesTracker;
+import com.mahesh.auth.auth_service.config.UserShards;
+import com.mahesh.auth.auth_service.io.ProfileRequest;
+import com.mahesh.auth.auth_service.io.ProfileResponse;
+import com.mahesh.auth.auth_service.service.EmailService;
+import com.mahesh.auth.auth_service.service.InMemoryOtpStore;
+import com.mahesh.auth.auth_service.service.MailDispatcher;
+import com.mahesh.auth.auth_service.service.OtpAttemptService;
+import com.mahesh.auth.auth_service.service.OtpHasher;
+import com.mahesh.auth.auth_service.service.ProfileServiceImpl;
+import com.mahesh.auth.auth_service.service.UserDetailsCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity/DTO conversion cost in ProfileServiceImpl. A no-op password
+ * encoder and an in-memory repository isolate the conversion work from
+ * hashing (see PasswordEncoderBenchmark) and SQL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProfileServiceBenchmark {
+
+    private ProfileServiceImpl profileService;
+    private ProfileRequest request;
+
+    @Setup
+    @SuppressWarnings("deprecation")
+    public void setUp() {
+        // Synchronous dispatcher over a sender that drops everything
+        MailDispatcher mailDispatcher = new MailDispatcher(new JavaMailSenderImpl() {
+            @Override
+            public void send(SimpleMailMessage... simpleMessages) {
+            }
+        }, false, 1, Duration.ZERO, 0, 1, 1, Duration.ZERO, false);
+
+        UserShards userShards = new UserShards(false, new String[0], 1024, "", null);
+        profileService = new ProfileServiceImpl(
+                BenchmarkFixtures.repositoryReturning(BenchmarkFixtures.user("password")),
+                NoOpPasswordEncoder.getInstance(),
+                new EmailService(mailDispatcher, null),
+                new UserDetailsCache(false, 1, Duration.ofMinutes(1)),
+                null,
+                null,
+                new InMemoryOtpStore(Duration.ofSeconds(1), 64, new OtpHasher(BenchmarkFixtures.SECRET)),
+                new OtpAttemptService(new SimpleMeterRegistry(), false, 5, 20,
+                        Duration.ofMinutes(1), Duration.ofHours(1), 1),
+                new ReadYourWritesTracker(false, Duration.ofSeconds(5)),
+                userShards,
+                new SimpleMeterRegistry(),
+                BenchmarkFixtures.noTransactions()
+        );
+        request = new ProfileRequest("Bench User", BenchmarkFixtures.EMAIL, "password123");
+    }
+
+    // findProfileByEmail + convertToProfileResponse
+    @Benchmark
+    public ProfileResponse getProfile() {
+        return profileService.getProfile(BenchmarkFixtures.EMAIL);
+    }
+
+    @Benchmark
+    public String getLoggedInUserId() {
+        return profileService.getLoggedInUserId(BenchmarkFixtures.EMAIL);
+    }
+
+    // convertToUserEntity + save + convertToProfileResponse + welcome message build
+    @Benchmark
+    public ProfileResponse createProfile() {
+        return profileService.createProfile(request);
+    }
+}
@@ -0,0 +1,69 @@
+package com.mahesh.auth.auth_service.benchmark;
+
+import com.mahesh.auth.auth_service.service.InMemoryRateLimitStore;
+import com.mahesh.auth.auth_service.service.RateLimitService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class RateLimitBenchmark {
+
+    // High enough that every check is allowed: measures the cost, not the rejections
+    private static final String UNLIMITED = "1000000000/1s";
+
+    private RateLimitService rateLimitService;
+    private InMemoryRateLimitStore store;
+    private String[] clientIps;
+
+    @Setup
+    public void setUp() {
+        store = new InMemoryRateLimitStore();
+        rateLimitService = new RateLimitService(store, new SimpleMeterRegistry(), true,
+                UNLIMITED, UNLIMITED, UNLIMITED,
+                UNLIMITED, UNLIMITED, UNLIMITED,
+                UNLIMITED, UNLIMITED, UNLIMITED);
+        clientIps = new String[1024];
+        for (int i = 0; i < clientIps.length; i++) {
+            clientIps[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+
+    // Email, IP and global buckets; all threads contend on the global key
+    @Benchmark
+    public void checkLogin() {
+        String ip = clientIps[ThreadLocalRandom.current().nextInt(clientIps.length)];
+        rateLimitService.check(RateLimitService.Action.LOGIN, ip, BenchmarkFixtures.EMAIL);
+    }
+
+    // Single hot bucket: worst case for CAS retries
+    @Benchmark
+    public long hotKey() {
+        return store.tryAcquire("hot", 1, 1_000_000, System.nanoTime() / 1000);
+    }
+
+    // Mostly distinct buckets: no contention
+    @Benchmark
+    public long spreadKeys() {
+        String ip = clientIps[ThreadLocalRandom.current().nextInt(clientIps.length)];
+        return store.tryAcquire(ip, 1, 1_000_000, System.nanoTime() / 1000);
+    }
+}
@@ -0,0 +1,82 @@
+package com.mahesh.auth.auth_service.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedPasswordEncoderTests {
+
+    private final CountDownLatch hashing = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    // Blocks the first hash until released so the pool and queue can be filled
+    private final PasswordEncoder slowEncoder = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            hashing.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return rawPassword.toString().equals(encodedPassword);
+        }
+    };
+
+    @Test
+    void rejectsWhenPoolAndQueueAreFull() throws Exception {
+        try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(slowEncoder, 1, 1);
+             ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+
+            Future<String> running = callers.submit(() -> encoder.encode("first"));
+            assertTrue(hashing.await(5, TimeUnit.SECONDS));
+            Future<Boolean> queued = callers.submit(() -> encoder.matches("second", "second"));
+            waitForQueueDepth(encoder, 1);
+
+            assertThrows(PasswordHashingSaturatedException.class, () -> encoder.matches("third", "third"));
+            assertEquals(1, encoder.getRejectedCount());
+
+            release.countDown();
+            assertEquals("first", running.get(5, TimeUnit.SECONDS));
+            assertTrue(queued.get(5, TimeUnit.SECONDS));
+            assertEquals(2, encoder.getHashCount());
+            // The queued call waited for the blocked one
+            assertTrue(encoder.getQueueNanos() > 0);
+        }
+    }
+
+    @Test
+    void acceptsAgainOnceTheQueueDrains() {
+        try (BoundedPasswordEncoder encoder =
+                     new BoundedPasswordEncoder(NoOpPasswordEncoder.getInstance(), 1, 1)) {
+            for (int i = 0; i < 10; i++) {
+                assertTrue(encoder.matches("password", encoder.encode("password")));
+            }
+            assertEquals(20, encoder.getHashCount());
+            assertEquals(0, encoder.getRejectedCount());
+        }
+    }
+
+    private static void waitForQueueDepth(BoundedPasswordEncoder encoder, int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (encoder.getQueueDepth() < depth && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(depth, encoder.getQueueDepth());
+    }
+}
@@ -0,0 +1,57 @@
+package com.mahesh.auth.auth_service.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConcurrencyLimitingDataSourceTests {
+
+    @Test
+    void closeReleasesThePermitOnce() throws Exception {
+        ConcurrencyLimitingDataSource dataSource = limited("jdbc:h2:mem:limit-close", 2);
+
+        Connection connection = dataSource.getConnection();
+        assertEquals(1, dataSource.getAvailablePermits());
+
+        connection.close();
+        connection.close();
+        assertEquals(2, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    void timesOutWhenAllPermitsAreTaken() throws Exception {
+        ConcurrencyLimitingDataSource dataSource = limited("jdbc:h2:mem:limit-timeout", 1);
+
+        try (Connection held = dataSource.getConnection()) {
+            assertThrows(CannotGetJdbcConnectionException.class, dataSource::getConnection);
+            assertEquals(0, dataSource.getAvailablePermits());
+        }
+
+        // The failed attempt did not leak a permit
+        try (Connection ignored = dataSource.getConnection()) {
+            assertEquals(0, dataSource.getAvailablePermits());
+        }
+        assertEquals(1, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    void failedConnectReleasesThePermit() {
+        ConcurrencyLimitingDataSource dataSource = limited("jdbc:h2:nosuchmode:limit-broken", 1);
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertEquals(1, dataSource.getAvailablePermits());
+    }
+
+    private static ConcurrencyLimitingDataSource limited(String url, int permits) {
+        JdbcDataSource target = new JdbcDataSource();
+        target.setURL(url);
+        return new ConcurrencyLimitingDataSource(target, permits, Duration.ofMillis(50));
+    }
+}
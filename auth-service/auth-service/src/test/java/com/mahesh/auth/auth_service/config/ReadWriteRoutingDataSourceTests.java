@@ -0,0 +1,78 @@
+package com.mahesh.auth.auth_service.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * A primary and a replica from {@link TestDatabases}; the marker row shows
+ * which one each read went to.
+ */
+class ReadWriteRoutingDataSourceTests {
+
+    private static final String EMAIL = "user@example.com";
+
+    private final ReadYourWritesTracker readYourWrites =
+            new ReadYourWritesTracker(true, Duration.ofMillis(200));
+
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = TestDatabases.create("primary");
+        DataSource replica = TestDatabases.create("replica");
+        DataSource routing = ReadWriteRoutingDataSource.create(primary, replica, readYourWrites);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        jdbc = new JdbcTemplate(routing);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    void readOnlyTransactionsUseReplica() {
+        assertEquals("replica", readOnly.execute(status -> marker()));
+        assertEquals("primary", readWrite.execute(status -> marker()));
+        // No transaction: nothing says it is safe to read stale data
+        assertEquals("primary", marker());
+    }
+
+    @Test
+    void userReadsOwnWritesFromPrimaryUntilWindowEnds() throws InterruptedException {
+        readWrite.executeWithoutResult(status -> readYourWrites.wrote(EMAIL));
+
+        assertEquals("primary", readOnly.execute(status -> readYourWrites.readFor(EMAIL, this::marker)));
+        assertEquals("primary", readOnly.execute(status -> readYourWrites.readFor(" USER@example.com", this::marker)));
+        // Other users are unaffected
+        assertEquals("replica", readOnly.execute(status -> readYourWrites.readFor("other@example.com", this::marker)));
+
+        Thread.sleep(300);
+        assertEquals("replica", readOnly.execute(status -> readYourWrites.readFor(EMAIL, this::marker)));
+    }
+
+    @Test
+    void disabledTrackerNeverPinsToPrimary() {
+        ReadYourWritesTracker disabled = new ReadYourWritesTracker(false, Duration.ofMinutes(1));
+        disabled.wrote(EMAIL);
+
+        disabled.readFor(EMAIL, () -> {
+            assertFalse(disabled.mustReadPrimary());
+            return null;
+        });
+    }
+
+    private String marker() {
+        return TestDatabases.marker(jdbc);
+    }
+}
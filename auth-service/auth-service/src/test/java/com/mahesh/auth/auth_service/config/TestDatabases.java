@@ -0,0 +1,35 @@
+package com.mahesh.auth.auth_service.config;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+/**
+ * Throwaway embedded H2 databases for the routing and sharding tests. Each
+ * holds a db_marker row naming itself, so a query shows which database the
+ * routing picked.
+ */
+public final class TestDatabases {
+
+    private TestDatabases() {
+    }
+
+    // Extra statements (tables, seed rows) run after the marker is created
+    public static DataSource create(String name, String... statements) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE db_marker (name VARCHAR(16))");
+        jdbc.update("INSERT INTO db_marker VALUES (?)", name);
+        for (String statement : statements) {
+            jdbc.execute(statement);
+        }
+        return dataSource;
+    }
+
+    public static String marker(JdbcTemplate jdbc) {
+        return jdbc.queryForObject("SELECT name FROM db_marker", String.class);
+    }
+}
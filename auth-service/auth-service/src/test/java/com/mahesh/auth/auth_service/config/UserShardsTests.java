@@ -0,0 +1,120 @@
+package com.mahesh.auth.auth_service.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Three {@link TestDatabases} as shards, plus an audit table to see where
+ * writes commit.
+ */
+class UserShardsTests {
+
+    private final List<DataSource> shards = new ArrayList<>();
+
+    private UserShards userShards;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 3; i++) {
+            shards.add(TestDatabases.create("shard-" + i, "CREATE TABLE audit (event VARCHAR(16))"));
+        }
+        DataSource routing = new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shards));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+
+        userShards = new UserShards(true, new String[]{"shard-1-url", "shard-2-url"}, 16, "", transactionManager);
+        jdbc = new JdbcTemplate(routing);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void layoutAssignsEveryBucketOnce() {
+        assertArrayEquals(new int[]{0, 0, 0, 1, 1, 1, 2, 2, 2}, UserShards.parseLayout("", 3, 9));
+        assertArrayEquals(new int[]{0, 0, 0, 1, 1, 1, 0, 0, 0}, UserShards.parseLayout("0-2,6-8;3-5;", 3, 9));
+
+        assertThrows(IllegalStateException.class, () -> UserShards.parseLayout("0-5;5-8", 2, 9));
+        assertThrows(IllegalStateException.class, () -> UserShards.parseLayout("0-3;5-8", 2, 9));
+        assertThrows(IllegalStateException.class, () -> UserShards.parseLayout("0-8", 2, 9));
+    }
+
+    @Test
+    void userIdEncodesShard() {
+        for (int shard = 0; shard < 3; shard++) {
+            String email = emailOn(shard);
+            assertEquals(shard, userShards.shardOfUserId(userShards.newUserId(email)));
+        }
+        assertEquals(-1, userShards.shardOfUserId(UUID.randomUUID().toString()));
+
+        UserShards disabled = new UserShards(false, new String[0], 1024, "", null);
+        assertEquals(36, disabled.newUserId("user@example.com").length());
+        assertEquals(0, disabled.shardOf("user@example.com"));
+    }
+
+    @Test
+    void transactionFollowsBoundUser() {
+        for (int shard = 0; shard < 3; shard++) {
+            String email = emailOn(shard);
+            assertEquals("shard-" + shard, transactionTemplate.execute(status -> {
+                userShards.bind(email);
+                return marker();
+            }));
+            // Email case and whitespace do not change the shard
+            assertEquals("shard-" + shard, userShards.on(" " + email.toUpperCase() + " ", this::marker));
+        }
+        // Binding ends with the transaction
+        assertEquals("shard-0", marker());
+        assertThrows(IllegalStateException.class, () -> userShards.bind(emailOn(1)));
+    }
+
+    @Test
+    void homeShardWritesCommitSeparately() {
+        String email = emailOn(2);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            userShards.bind(email);
+            jdbc.update("INSERT INTO audit VALUES ('user-shard')");
+            userShards.onHomeShard(() -> jdbc.update("INSERT INTO audit VALUES ('home-shard')"));
+            assertEquals("shard-2", marker());
+            status.setRollbackOnly();
+        });
+
+        assertEquals(List.of("home-shard"), audit(0));
+        assertEquals(List.of(), audit(2));
+    }
+
+    @Test
+    void onEachShardVisitsAllShards() {
+        assertEquals(List.of("shard-0", "shard-1", "shard-2"), userShards.onEachShard(this::marker));
+    }
+
+    private String emailOn(int shard) {
+        for (int i = 0; ; i++) {
+            String email = "user" + i + "@example.com";
+            if (userShards.shardOf(email) == shard) {
+                return email;
+            }
+        }
+    }
+
+    private String marker() {
+        return TestDatabases.marker(jdbc);
+    }
+
+    private List<String> audit(int shard) {
+        return new JdbcTemplate(shards.get(shard)).queryForList("SELECT event FROM audit", String.class);
+    }
+}
@@ -0,0 +1,263 @@
+package com.mahesh.auth.auth_service.controller;
+
+import com.mahesh.auth.auth_service.config.PasswordEncoders;
+import com.mahesh.auth.auth_service.config.PasswordHashingSaturatedException;
+import com.mahesh.auth.auth_service.config.ReadYourWritesTracker;
+import com.mahesh.auth.auth_service.config.UserShards;
+import com.mahesh.auth.auth_service.entity.UserEntity;
+import com.mahesh.auth.auth_service.io.AuthRequest;
+import com.mahesh.auth.auth_service.io.AuthResponse;
+import com.mahesh.auth.auth_service.io.SessionResponse;
+import com.mahesh.auth.auth_service.repository.RefreshTokenRepository;
+import com.mahesh.auth.auth_service.repository.UserRepository;
+import com.mahesh.auth.auth_service.service.AppUserDetailsService;
+import com.mahesh.auth.auth_service.service.AppUserPrincipal;
+import com.mahesh.auth.auth_service.service.InMemoryRateLimitStore;
+import com.mahesh.auth.auth_service.service.ProfileService;
+import com.mahesh.auth.auth_service.service.RateLimitService;
+import com.mahesh.auth.auth_service.service.RefreshTokenService;
+import com.mahesh.auth.auth_service.service.TokenRevocationService;
+import com.mahesh.auth.auth_service.service.UserDetailsCache;
+import com.mahesh.auth.auth_service.util.JwtUtil;
+import com.mahesh.auth.auth_service.util.TestSigningKeys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class AuthControllerTests {
+
+    private static final String EMAIL = "login@example.com";
+    private static final String OPEN = "1000/1s";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private AuthController authController;
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        PasswordEncoder passwordEncoder = PasswordEncoders.delegating(PasswordEncoders.BCRYPT, 4);
+        userRepository.save(UserEntity.builder()
+                .userId("0d9c2f7e-1b7a-4c52-9a0e-5f1d2c3b4a59")
+                .name("Login User")
+                .email(EMAIL)
+                .password(passwordEncoder.encode("password123"))
+                .isAccountVerified(true)
+                .build());
+
+        jwtUtil = new JwtUtil(TestSigningKeys.hmac("login-test-secret-key-with-at-least-32-bytes"),
+                Duration.ofMinutes(15));
+        authController = controller(passwordEncoder);
+    }
+
+    private AuthController controller(PasswordEncoder passwordEncoder) {
+        // User cache off so every lookup is a real query
+        AppUserDetailsService userDetailsService = new AppUserDetailsService(
+                userRepository, new UserDetailsCache(false, 1, Duration.ofMinutes(1)),
+                new ReadYourWritesTracker(false, Duration.ofSeconds(5)),
+                new UserShards(false, new String[0], 1024, "", null));
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        return controller(new ProviderManager(provider), userDetailsService);
+    }
+
+    private AuthController controller(AuthenticationManager authenticationManager,
+                                      AppUserDetailsService userDetailsService) {
+        return controller(authenticationManager, userDetailsService, null);
+    }
+
+    private AuthController controller(AuthenticationManager authenticationManager,
+                                      AppUserDetailsService userDetailsService,
+                                      ProfileService profileService) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new AuthController(
+                authenticationManager,
+                userDetailsService,
+                jwtUtil,
+                profileService,
+                new RefreshTokenService(refreshTokenRepository, Duration.ofDays(14), Duration.ofSeconds(10)),
+                new TokenRevocationService(null, Duration.ofMinutes(15), 1000, Duration.ofMinutes(1)),
+                new RateLimitService(new InMemoryRateLimitStore(), meterRegistry, false,
+                        OPEN, OPEN, OPEN, OPEN, OPEN, OPEN, OPEN, OPEN, OPEN),
+                meterRegistry);
+    }
+
+    @Test
+    void loginLoadsTheUserOnce() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ResponseEntity<?> response = authController.login(
+                new AuthRequest(EMAIL, "password123"), new MockHttpServletRequest());
+
+        assertEquals(200, response.getStatusCode().value());
+        // Only the credentials lookup; the refresh token is a plain insert
+        assertEquals(1, statistics.getQueryExecutionCount());
+
+        // Token claims come from the authenticated principal
+        AuthResponse body = assertInstanceOf(AuthResponse.class, response.getBody());
+        assertEquals("0d9c2f7e-1b7a-4c52-9a0e-5f1d2c3b4a59",
+                jwtUtil.verifyToken(body.getToken()).getClaims().get(JwtUtil.CLAIM_USER_ID));
+    }
+
+    @Test
+    void saturatedHashPoolIsServiceUnavailable() {
+        PasswordEncoder saturated = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                throw new PasswordHashingSaturatedException();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                throw new PasswordHashingSaturatedException();
+            }
+        };
+        AuthController controller = controller(saturated);
+
+        // Known user: the hash runs in the password check
+        PasswordHashingSaturatedException known = assertThrows(PasswordHashingSaturatedException.class,
+                () -> controller.login(new AuthRequest(EMAIL, "password123"), new MockHttpServletRequest()));
+        assertEquals(503, known.getStatusCode().value());
+
+        // Unknown user: the dummy hash for timing protection
+        PasswordHashingSaturatedException unknown = assertThrows(PasswordHashingSaturatedException.class,
+                () -> controller.login(new AuthRequest("nobody@example.com", "password123"),
+                        new MockHttpServletRequest()));
+        assertEquals(503, unknown.getStatusCode().value());
+    }
+
+    @Test
+    void saturationWrappedByTheProviderIsServiceUnavailable() {
+        // Thrown from the user lookup, so the provider wraps it in InternalAuthenticationServiceException
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(email -> {
+            throw new PasswordHashingSaturatedException();
+        });
+        AuthController controller = controller(new ProviderManager(provider), null);
+
+        PasswordHashingSaturatedException ex = assertThrows(PasswordHashingSaturatedException.class,
+                () -> controller.login(new AuthRequest(EMAIL, "password123"), new MockHttpServletRequest()));
+        assertEquals(503, ex.getStatusCode().value());
+    }
+
+    @Test
+    void sessionIsServedFromThePrincipalAndRevalidated() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        AppUserPrincipal principal = new AppUserPrincipal(
+                EMAIL, "", List.of(), "0d9c2f7e-1b7a-4c52-9a0e-5f1d2c3b4a59", "Login User", true);
+
+        ResponseEntity<SessionResponse> first = authController.session(principal, null, request(null));
+        SessionResponse body = first.getBody();
+        assertTrue(body.isAuthenticated());
+        assertEquals("Login User", body.getProfile().getName());
+        assertEquals(0, statistics.getQueryExecutionCount());
+
+        String etag = first.getHeaders().getETag();
+        ResponseEntity<SessionResponse> second = authController.session(principal, null, request(etag));
+        assertEquals(304, second.getStatusCode().value());
+        assertNull(second.getBody());
+
+        // Weak validators and lists, as browsers and proxies send them
+        assertEquals(304, authController.session(principal, null, request("W/" + etag)).getStatusCode().value());
+        assertEquals(304, authController.session(principal, null, request("\"old\", " + etag)).getStatusCode().value());
+        assertEquals(200, authController.session(principal, null, request("\"old\"")).getStatusCode().value());
+    }
+
+    @Test
+    void sessionWithoutLoginIsNotAuthenticated() {
+        ResponseEntity<SessionResponse> response = authController.session(null, null, request(null));
+
+        assertEquals(200, response.getStatusCode().value());
+        assertFalse(response.getBody().isAuthenticated());
+        assertNull(response.getBody().getProfile());
+    }
+
+    @Test
+    void sessionWithOnlyARefreshTokenAsksForARefresh() {
+        // The access cookie expired, but the client can still refresh
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> authController.session(null, "refresh-token", request(null)));
+        assertEquals(401, ex.getStatusCode().value());
+    }
+
+    @Test
+    void verifyEmailReissuesTheAccessToken() {
+        String email = "unverified@example.com";
+        userRepository.save(UserEntity.builder()
+                .userId("6a3f1c2e-7d4b-4e19-8c5a-2b0d9e8f7a61")
+                .name("Unverified User")
+                .email(email)
+                .password("{noop}password123")
+                .isAccountVerified(false)
+                .build());
+
+        // Verification itself is covered by the service tests; here it only flips the flag
+        ProfileService profileService = (ProfileService) Proxy.newProxyInstance(
+                ProfileService.class.getClassLoader(),
+                new Class<?>[]{ProfileService.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "verifyOtp" -> {
+                        userRepository.markAccountVerified(email);
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        AppUserDetailsService userDetailsService = new AppUserDetailsService(
+                userRepository, new UserDetailsCache(false, 1, Duration.ofMinutes(1)),
+                new ReadYourWritesTracker(false, Duration.ofSeconds(5)),
+                new UserShards(false, new String[0], 1024, "", null));
+        AuthController controller = controller(null, userDetailsService, profileService);
+
+        ResponseEntity<?> response = controller.verifyEmail(
+                Map.of("otp", "123456"), email, new MockHttpServletRequest());
+
+        String cookie = response.getHeaders().getFirst(HttpHeaders.SET_COOKIE);
+        assertTrue(cookie.startsWith("jwt="));
+        String token = cookie.substring("jwt=".length(), cookie.indexOf(';'));
+        assertEquals(Boolean.TRUE, jwtUtil.verifyToken(token).getClaims().get(JwtUtil.CLAIM_VERIFIED));
+    }
+
+    private static ServletWebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/session");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
@@ -0,0 +1,63 @@
+package com.mahesh.auth.auth_service.controller;
+
+import com.mahesh.auth.auth_service.util.SigningKeyRing;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JwksControllerTests {
+
+    private final SigningKeyRing signingKeyRing = new SigningKeyRing("", "ES256", "", "", "", Duration.ZERO, "");
+    private final JwksController controller = new JwksController(signingKeyRing);
+
+    JwksControllerTests() {
+        ReflectionTestUtils.setField(controller, "maxAge", Duration.ofMinutes(5));
+    }
+
+    @Test
+    void servesThePublicKeysWithAnEtag() {
+        ResponseEntity<Map<String, List<Map<String, Object>>>> response = jwks(null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(signingKeyRing.getJwksEtag(), response.getHeaders().getETag());
+        assertEquals("max-age=300, public", response.getHeaders().getCacheControl());
+        assertEquals(signingKeyRing.getActive().kid(), response.getBody().get("keys").get(0).get("kid"));
+    }
+
+    @Test
+    void matchingEtagIsNotModified() {
+        String etag = signingKeyRing.getJwksEtag();
+        assertEquals(HttpStatus.NOT_MODIFIED, jwks(etag).getStatusCode());
+        // Weak comparison, as sent back by caches that recompress the body
+        assertEquals(HttpStatus.NOT_MODIFIED, jwks("W/" + etag).getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED, jwks("\"other\", " + etag).getStatusCode());
+
+        ResponseEntity<Map<String, List<Map<String, Object>>>> response = jwks(etag);
+        assertNull(response.getBody());
+        assertEquals("max-age=300, public", response.getHeaders().getCacheControl());
+    }
+
+    @Test
+    void staleEtagGetsTheKeys() {
+        assertEquals(HttpStatus.OK, jwks("\"stale\"").getStatusCode());
+    }
+
+    private ResponseEntity<Map<String, List<Map<String, Object>>>> jwks(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/.well-known/jwks.json");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return controller.jwks(new ServletWebRequest(request, new MockHttpServletResponse()));
+    }
+}
@@ -0,0 +1,135 @@
+package com.mahesh.auth.auth_service.controller;
+
+import com.mahesh.auth.auth_service.config.ReadYourWritesTracker;
+import com.mahesh.auth.auth_service.config.UserShards;
+import com.mahesh.auth.auth_service.entity.UserEntity;
+import com.mahesh.auth.auth_service.io.ProfileResponse;
+import com.mahesh.auth.auth_service.repository.UserRepository;
+import com.mahesh.auth.auth_service.service.EmailService;
+import com.mahesh.auth.auth_service.service.InMemoryOtpStore;
+import com.mahesh.auth.auth_service.service.MailDispatcher;
+import com.mahesh.auth.auth_service.service.OtpAttemptService;
+import com.mahesh.auth.auth_service.service.OtpHasher;
+import com.mahesh.auth.auth_service.service.ProfileServiceImpl;
+import com.mahesh.auth.auth_service.service.UserDetailsCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ProfileControllerTests {
+
+    private static final String EMAIL = "profile@example.com";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ProfileController profileController;
+    private Statistics statistics;
+
+    @BeforeEach
+    @SuppressWarnings("deprecation")
+    void setUp() {
+        userRepository.saveAndFlush(UserEntity.builder()
+                .userId("5b0e8a43-3c1d-4f8e-9d2a-7c6b5a4f3e21")
+                .name("Profile User")
+                .email(EMAIL)
+                .password("password123")
+                .isAccountVerified(true)
+                .build());
+
+        UserShards userShards = new UserShards(false, new String[0], 1024, "", null);
+        MailDispatcher mailDispatcher = new MailDispatcher(new JavaMailSenderImpl(), false, 1, Duration.ZERO,
+                1, 1, 1, Duration.ZERO, false);
+        profileController = new ProfileController(new ProfileServiceImpl(
+                userRepository,
+                NoOpPasswordEncoder.getInstance(),
+                new EmailService(mailDispatcher, null),
+                new UserDetailsCache(false, 1, Duration.ofMinutes(1)),
+                null,
+                null,
+                new InMemoryOtpStore(Duration.ofSeconds(1), 8, new OtpHasher("otp-test-secret")),
+                new OtpAttemptService(new SimpleMeterRegistry(), false, 5, 20,
+                        Duration.ofMinutes(1), Duration.ofHours(1), 1),
+                new ReadYourWritesTracker(false, Duration.ofSeconds(5)),
+                userShards,
+                new SimpleMeterRegistry(),
+                new TransactionTemplate(transactionManager)));
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void firstRequestLoadsTheProfileOnly() {
+        ResponseEntity<ProfileResponse> response = profileController.getProfile(EMAIL, request(null));
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals("Profile User", response.getBody().getName());
+        assertNotNull(response.getHeaders().getETag());
+        assertEquals(1, statistics.getQueryExecutionCount());
+    }
+
+    @Test
+    void matchingEtagIsAnsweredFromTheVersionQuery() {
+        String etag = profileController.getProfile(EMAIL, request(null)).getHeaders().getETag();
+
+        for (String ifNoneMatch : new String[] {etag, "W/" + etag, "\"other\", " + etag}) {
+            statistics.clear();
+            ResponseEntity<ProfileResponse> response = profileController.getProfile(EMAIL, request(ifNoneMatch));
+
+            assertEquals(304, response.getStatusCode().value(), ifNoneMatch);
+            assertNull(response.getBody());
+            assertEquals(etag, response.getHeaders().getETag());
+            // Only the single-column version query
+            assertEquals(1, statistics.getQueryExecutionCount());
+        }
+    }
+
+    @Test
+    void staleEtagGetsTheProfile() {
+        String etag = profileController.getProfile(EMAIL, request(null)).getHeaders().getETag();
+        statistics.clear();
+
+        ResponseEntity<ProfileResponse> response = profileController.getProfile(EMAIL, request("\"stale\""));
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(etag, response.getHeaders().getETag());
+        assertEquals("Profile User", response.getBody().getName());
+        // Version query, then the profile
+        assertEquals(2, statistics.getQueryExecutionCount());
+    }
+
+    private static ServletWebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/profile");
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
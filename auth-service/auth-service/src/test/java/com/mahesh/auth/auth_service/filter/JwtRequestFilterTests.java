@@ -0,0 +1,157 @@
+package com.mahesh.auth.auth_service.filter;
+
+import com.mahesh.auth.auth_service.config.ReadYourWritesTracker;
+import com.mahesh.auth.auth_service.config.UserShards;
+import com.mahesh.auth.auth_service.repository.RevokedTokenRepository;
+import com.mahesh.auth.auth_service.repository.UserCredentials;
+import com.mahesh.auth.auth_service.repository.UserRepository;
+import com.mahesh.auth.auth_service.service.AppUserDetailsService;
+import com.mahesh.auth.auth_service.service.AppUserPrincipal;
+import com.mahesh.auth.auth_service.service.TokenRevocationService;
+import com.mahesh.auth.auth_service.service.UserDetailsCache;
+import com.mahesh.auth.auth_service.util.JwtUtil;
+import com.mahesh.auth.auth_service.util.TestSigningKeys;
+import com.mahesh.auth.auth_service.util.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtRequestFilterTests {
+
+    private static final String EMAIL = "filter@example.com";
+    private static final String USER_ID = "7c1d2e3f-4a5b-4c6d-8e9f-0a1b2c3d4e5f";
+
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final JwtUtil jwtUtil = new JwtUtil(
+            TestSigningKeys.hmac("filter-test-secret-key-with-at-least-32-bytes"), Duration.ofMinutes(15));
+
+    private VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(false, 1, Duration.ofMinutes(1));
+    private final TokenRevocationService tokenRevocationService =
+            new TokenRevocationService(revokedTokenRepository(), Duration.ofMinutes(15), 1000, Duration.ofMinutes(1));
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void statelessModeBuildsThePrincipalFromClaims() throws Exception {
+        String token = jwtUtil.generateToken(new AppUserPrincipal(EMAIL, "",
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN")), USER_ID, "Claim Name", true));
+
+        Authentication authentication = filter(true, token);
+
+        AppUserPrincipal principal = assertInstanceOf(AppUserPrincipal.class, authentication.getPrincipal());
+        assertEquals(EMAIL, principal.getUsername());
+        assertEquals(USER_ID, principal.getUserId());
+        assertEquals("Claim Name", principal.getName());
+        assertTrue(principal.getIsAccountVerified());
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_ADMIN")), List.copyOf(authentication.getAuthorities()));
+        assertEquals(0, lookups.get());
+    }
+
+    @Test
+    void tokenWithoutProfileClaimsFallsBackToTheDatabase() throws Exception {
+        // Issued before the claims existed: only a subject
+        String token = jwtUtil.generateToken(User.withUsername(EMAIL).password("").build());
+
+        AppUserPrincipal principal = assertInstanceOf(AppUserPrincipal.class, filter(true, token).getPrincipal());
+        assertEquals("Database Name", principal.getName());
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    void statefulModeLoadsTheUserPerRequest() throws Exception {
+        String token = jwtUtil.generateToken(new AppUserPrincipal(EMAIL, "", List.of(), USER_ID, "Claim Name", true));
+
+        AppUserPrincipal principal = assertInstanceOf(AppUserPrincipal.class, filter(false, token).getPrincipal());
+        assertEquals("Database Name", principal.getName());
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    void invalidTokenLeavesTheRequestAnonymous() throws Exception {
+        assertNull(filter(true, "not-a-jwt"));
+        assertEquals(0, lookups.get());
+    }
+
+    @Test
+    void cachedTokenIsStillCheckedForRevocation() throws Exception {
+        verifiedTokenCache = new VerifiedTokenCache(true, 100, Duration.ofMinutes(10));
+        String token = jwtUtil.generateToken(new AppUserPrincipal(EMAIL, "", List.of(), USER_ID, "Claim Name", true));
+
+        assertInstanceOf(AppUserPrincipal.class, filter(true, token).getPrincipal());
+        assertEquals(1, verifiedTokenCache.stats().missCount());
+        SecurityContextHolder.clearContext();
+
+        // The cache only skips the signature check; revocation is looked up every time
+        tokenRevocationService.revoke(jwtUtil.verifyToken(token));
+        assertNull(filter(true, token));
+        assertEquals(1, verifiedTokenCache.stats().hitCount());
+    }
+
+    private Authentication filter(boolean stateless, String token) throws Exception {
+        AppUserDetailsService userDetailsService = new AppUserDetailsService(
+                countingRepository(),
+                new UserDetailsCache(false, 1, Duration.ofMinutes(1)),
+                new ReadYourWritesTracker(false, Duration.ofSeconds(5)),
+                new UserShards(false, new String[0], 1024, "", null));
+        JwtRequestFilter filter = new JwtRequestFilter(jwtUtil, verifiedTokenCache, tokenRevocationService,
+                userDetailsService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(filter, "statelessEnabled", stateless);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/profile");
+        request.setServletPath("/profile");
+        request.setCookies(new Cookie("jwt", token));
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    // Revocations are only kept in the service's local set
+    private static RevokedTokenRepository revokedTokenRepository() {
+        return (RevokedTokenRepository) Proxy.newProxyInstance(
+                RevokedTokenRepository.class.getClassLoader(),
+                new Class<?>[]{RevokedTokenRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "existsByJti" -> Boolean.FALSE;
+                    case "save" -> args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    // Counts credential lookups; the stored name differs from the claim so the source is visible
+    private UserRepository countingRepository() {
+        return (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findCredentialsByEmail" -> {
+                        lookups.incrementAndGet();
+                        yield Optional.of(new UserCredentials(USER_ID, "Database Name", EMAIL, "{noop}pw", true));
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,116 @@
+package com.mahesh.auth.auth_service.load;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Throughput check for /register and /login against a running instance.
+ * Start the service once with spring.threads.virtual.enabled=false and once
+ * with =true, then run:
+ *
+ *   mvn -P load-test test -Dloadtest.base-url=http://localhost:8080 -Dloadtest.concurrency=500
+ *
+ * Turn auth.rate-limit.enabled off on the instance first, otherwise the per-IP
+ * login limit rejects almost everything. Measured figures are in the README.
+ */
+@Slf4j
+@Tag("load")
+class AuthLoadTest {
+
+    private static final String BASE_URL = System.getProperty("loadtest.base-url");
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 200);
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 2000);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void registerAndLoginThroughput() throws Exception {
+        assumeTrue(BASE_URL != null, "loadtest.base-url not set");
+
+        String runId = UUID.randomUUID().toString().substring(0, 8);
+
+        Result register = report("/register", run(i -> post("/register",
+                "{\"name\":\"Load " + i + "\",\"email\":\"" + email(runId, i) + "\",\"password\":\"password123\"}")));
+        assertTrue(register.ok() > 0, "no /register request succeeded");
+
+        Result login = report("/login", run(i -> post("/login",
+                "{\"email\":\"" + email(runId, i) + "\",\"password\":\"password123\"}")));
+        assertTrue(login.ok() > 0, "no /login request succeeded");
+    }
+
+    private Result run(RequestFactory factory) throws Exception {
+        AtomicInteger ok = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger next = new AtomicInteger();
+
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < CONCURRENCY; c++) {
+                futures.add(clients.submit(() -> {
+                    int i;
+                    while ((i = next.getAndIncrement()) < REQUESTS) {
+                        try {
+                            int status = client.send(factory.create(i), HttpResponse.BodyHandlers.discarding())
+                                    .statusCode();
+                            (status < 300 ? ok : failed).incrementAndGet();
+                        } catch (Exception ex) {
+                            failed.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return new Result(ok.get(), failed.get(), System.nanoTime() - start);
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(BASE_URL + path))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static String email(String runId, int i) {
+        return "load-" + runId + "-" + i + "@example.com";
+    }
+
+    private static Result report(String endpoint, Result result) {
+        double seconds = result.elapsedNanos() / 1_000_000_000.0;
+        log.info("{} concurrency={} ok={} failed={} time={}s throughput={} req/s",
+                endpoint, CONCURRENCY, result.ok(), result.failed(),
+                String.format("%.2f", seconds), String.format("%.1f", result.ok() / seconds));
+        return result;
+    }
+
+    private interface RequestFactory {
+        HttpRequest create(int i);
+    }
+
+    private record Result(int ok, int failed, long elapsedNanos) {
+    }
+}
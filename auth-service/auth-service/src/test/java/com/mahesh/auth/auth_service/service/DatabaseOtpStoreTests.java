@@ -0,0 +1,107 @@
+package com.mahesh.auth.auth_service.service;
+
+import com.mahesh.auth.auth_service.config.UserShards;
+import com.mahesh.auth.auth_service.repository.OtpRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+// Runs against the embedded H2 database; each verify commits in its own transaction
+@DataJpaTest
+@Import({DatabaseOtpStore.class, OtpHasher.class, UserShards.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DatabaseOtpStoreTests {
+
+    private static final String EMAIL = "otp@example.com";
+    private static final String OTP = "123456";
+
+    @Autowired
+    private DatabaseOtpStore store;
+
+    @Autowired
+    private OtpRepository otpRepository;
+
+    @Autowired
+    private OtpHasher otpHasher;
+
+    @BeforeEach
+    void setUp() {
+        otpRepository.deleteAll();
+    }
+
+    @Test
+    void validOtpIsConsumedOnce() {
+        store.put(EMAIL, OtpStore.Purpose.VERIFY, OTP, Duration.ofMinutes(10));
+
+        assertEquals(OtpStore.Result.INVALID, store.verify(EMAIL, OtpStore.Purpose.VERIFY, "654321"));
+        assertEquals(OtpStore.Result.MISSING, store.verify(EMAIL, OtpStore.Purpose.RESET, OTP));
+        assertEquals(OtpStore.Result.VALID, store.verify(EMAIL, OtpStore.Purpose.VERIFY, OTP));
+        assertEquals(OtpStore.Result.MISSING, store.verify(EMAIL, OtpStore.Purpose.VERIFY, OTP));
+    }
+
+    @Test
+    void concurrentVerifiesHaveExactlyOneWinner() throws Exception {
+        store.put(EMAIL, OtpStore.Purpose.RESET, OTP, Duration.ofMinutes(10));
+        int callers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<OtpStore.Result>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(callers)) {
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return store.verify(EMAIL, OtpStore.Purpose.RESET, OTP);
+                }));
+            }
+            start.countDown();
+
+            int valid = 0;
+            for (Future<OtpStore.Result> result : results) {
+                if (result.get(10, TimeUnit.SECONDS) == OtpStore.Result.VALID) {
+                    valid++;
+                }
+            }
+            assertEquals(1, valid);
+        }
+    }
+
+    @Test
+    void expiredOtpIsRejectedAndPurged() {
+        store.put(EMAIL, OtpStore.Purpose.VERIFY, OTP, Duration.ofMillis(-1));
+        store.put(EMAIL, OtpStore.Purpose.RESET, OTP, Duration.ofMinutes(10));
+
+        assertEquals(OtpStore.Result.EXPIRED, store.verify(EMAIL, OtpStore.Purpose.VERIFY, OTP));
+        assertEquals(1, store.purgeExpired());
+        assertEquals(0, store.purgeExpired());
+        assertEquals(OtpStore.Result.MISSING, store.verify(EMAIL, OtpStore.Purpose.VERIFY, OTP));
+        assertEquals(OtpStore.Result.VALID, store.verify(EMAIL, OtpStore.Purpose.RESET, OTP));
+    }
+
+    @Test
+    void storesAHashKeyedWithTheServerSecret() {
+        store.put(EMAIL, OtpStore.Purpose.VERIFY, OTP, Duration.ofMinutes(10));
+
+        String stored = otpRepository.findAll().getFirst().getOtpHash();
+        assertNotNull(stored);
+        assertEquals(otpHasher.hash(EMAIL, OtpStore.Purpose.VERIFY, OTP), stored);
+        // Another key gives another value, so a leaked row cannot be brute-forced offline
+        assertNotEquals(new OtpHasher("some-other-secret").hash(EMAIL, OtpStore.Purpose.VERIFY, OTP), stored);
+    }
+}
@@ -0,0 +1,92 @@
+package com.mahesh.auth.auth_service.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EmailServiceTests {
+
+    private final List<SimpleMailMessage> submitted = new ArrayList<>();
+    private boolean queueFull;
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() {
+        MailDispatcher dispatcher = new MailDispatcher(new JavaMailSenderImpl(), false, 1, Duration.ZERO,
+                1, 1, 1, Duration.ZERO, false) {
+            @Override
+            public void submit(SimpleMailMessage message) {
+                if (queueFull) {
+                    throw new MailQueueFullException();
+                }
+                submitted.add(message);
+            }
+        };
+        emailService = new EmailService(dispatcher, null);
+        ReflectionTestUtils.setField(emailService, "fromEmail", "noreply@test.com");
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void welcomeEmailWaitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        emailService.sendWelcomeEmail("user@test.com", "User");
+        assertEquals(0, submitted.size());
+
+        // Rolled back: nothing is sent
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        assertEquals(0, submitted.size());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(1, submitted.size());
+    }
+
+    @Test
+    void outboxRowIsWrittenInTheCallersTransaction() {
+        List<SimpleMailMessage> enqueued = new ArrayList<>();
+        MailOutboxService outbox = new MailOutboxService(null) {
+            @Override
+            public void enqueue(SimpleMailMessage message) {
+                enqueued.add(message);
+            }
+        };
+        EmailService outboxService = new EmailService(null, outbox);
+        ReflectionTestUtils.setField(outboxService, "outboxEnabled", true);
+        TransactionSynchronizationManager.initSynchronization();
+
+        outboxService.sendWelcomeEmail("user@test.com", "User");
+        outboxService.sendResetOtpEmail("user@test.com", "123456");
+
+        // Not deferred to afterCommit, so the rows roll back with the user change
+        assertEquals(2, enqueued.size());
+        assertEquals(List.of(), TransactionSynchronizationManager.getSynchronizations());
+    }
+
+    @Test
+    void fullQueueDoesNotFailSignupButFailsOtp() {
+        queueFull = true;
+
+        emailService.sendWelcomeEmail("user@test.com", "User");
+        assertThrows(MailQueueFullException.class, () -> emailService.sendOtpEmail("user@test.com", "123456"));
+    }
+}
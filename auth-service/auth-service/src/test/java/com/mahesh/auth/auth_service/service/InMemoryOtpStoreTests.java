@@ -0,0 +1,48 @@
+package com.mahesh.auth.auth_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InMemoryOtpStoreTests {
+
+    private static final String EMAIL = "user@example.com";
+
+    private final InMemoryOtpStore store = new InMemoryOtpStore(Duration.ofMillis(10), 8,
+            new OtpHasher("otp-test-secret"));
+
+    @Test
+    void validOtpIsConsumedOnce() {
+        store.put(EMAIL, OtpStore.Purpose.VERIFY, "123456", Duration.ofMinutes(10));
+
+        assertEquals(OtpStore.Result.INVALID, store.verify(EMAIL, OtpStore.Purpose.VERIFY, "654321"));
+        assertEquals(OtpStore.Result.MISSING, store.verify(EMAIL, OtpStore.Purpose.RESET, "123456"));
+        assertEquals(OtpStore.Result.VALID, store.verify(EMAIL, OtpStore.Purpose.VERIFY, "123456"));
+        assertEquals(OtpStore.Result.MISSING, store.verify(EMAIL, OtpStore.Purpose.VERIFY, "123456"));
+    }
+
+    @Test
+    void newOtpReplacesPrevious() {
+        store.put(EMAIL, OtpStore.Purpose.RESET, "111111", Duration.ofMinutes(10));
+        store.put(EMAIL, OtpStore.Purpose.RESET, "222222", Duration.ofMinutes(10));
+
+        assertEquals(OtpStore.Result.INVALID, store.verify(EMAIL, OtpStore.Purpose.RESET, "111111"));
+        assertEquals(OtpStore.Result.VALID, store.verify(EMAIL, OtpStore.Purpose.RESET, "222222"));
+    }
+
+    @Test
+    void wheelPurgesExpiredOtps() throws InterruptedException {
+        store.put(EMAIL, OtpStore.Purpose.VERIFY, "123456", Duration.ofMillis(20));
+        // Longer than one turn of the 8 x 10ms wheel
+        store.put("other@example.com", OtpStore.Purpose.VERIFY, "123456", Duration.ofMinutes(10));
+
+        Thread.sleep(120);
+        store.purgeExpired();
+
+        assertEquals(1, store.size());
+        assertEquals(OtpStore.Result.VALID,
+                store.verify("other@example.com", OtpStore.Purpose.VERIFY, "123456"));
+    }
+}
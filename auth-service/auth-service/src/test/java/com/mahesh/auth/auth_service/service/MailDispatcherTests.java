@@ -0,0 +1,142 @@
+package com.mahesh.auth.auth_service.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MailDispatcherTests {
+
+    private MailDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (dispatcher != null) {
+            dispatcher.destroy();
+        }
+    }
+
+    @Test
+    void deliversQueuedMessagesInBatches() throws InterruptedException {
+        StubSmtpServer smtp = new StubSmtpServer();
+        smtp.blocked = new CountDownLatch(1);
+        dispatcher = new MailDispatcher(smtp, true, 100, Duration.ofMillis(100),
+                1, 10, 3, Duration.ofMillis(1), false);
+
+        // Hold the first send so the rest pile up in the queue
+        for (int i = 0; i < 25; i++) {
+            dispatcher.submit(message("user" + i + "@test.com"));
+        }
+        smtp.blocked.countDown();
+
+        assertTrue(smtp.awaitDelivered(25));
+        // First (held) batch + at most 3 batches of 10 for the remainder
+        assertTrue(smtp.batches.size() <= 4, "messages should share SMTP sessions");
+    }
+
+    @Test
+    void retriesOnlyFailedMessages() {
+        StubSmtpServer smtp = new StubSmtpServer();
+        smtp.failOnce.add("flaky@test.com");
+        dispatcher = new MailDispatcher(smtp, false, 10, Duration.ofMillis(10),
+                1, 10, 3, Duration.ofMillis(1), false);
+
+        List<SimpleMailMessage> failed = dispatcher.sendBatch(List.of(
+                message("ok@test.com"),
+                message("flaky@test.com")
+        ));
+
+        assertTrue(failed.isEmpty());
+        assertEquals(2, smtp.batches.size());
+        assertEquals(List.of("flaky@test.com"), smtp.batches.get(1));
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws InterruptedException {
+        StubSmtpServer smtp = new StubSmtpServer();
+        smtp.blocked = new CountDownLatch(1);
+        dispatcher = new MailDispatcher(smtp, true, 1, Duration.ofMillis(10),
+                1, 1, 1, Duration.ofMillis(1), false);
+
+        // First message occupies the worker, second fills the queue
+        dispatcher.submit(message("a@test.com"));
+        assertTrue(smtp.sending.await(5, TimeUnit.SECONDS));
+        dispatcher.submit(message("b@test.com"));
+
+        assertThrows(MailQueueFullException.class,
+                () -> dispatcher.submit(message("c@test.com")));
+
+        smtp.blocked.countDown();
+    }
+
+    private static SimpleMailMessage message(String to) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setTo(to);
+        message.setSubject("test");
+        message.setText("test");
+        return message;
+    }
+
+    /**
+     * In-process stand-in for an SMTP server: records each batch
+     * (one batch = one connection) instead of talking to a real server.
+     */
+    static class StubSmtpServer extends JavaMailSenderImpl {
+
+        final List<List<String>> batches = new CopyOnWriteArrayList<>();
+        final List<String> failOnce = new CopyOnWriteArrayList<>();
+        final CountDownLatch sending = new CountDownLatch(1);
+        volatile CountDownLatch blocked;
+
+        @Override
+        public void send(SimpleMailMessage... simpleMessages) {
+            sending.countDown();
+            if (blocked != null) {
+                try {
+                    blocked.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            batches.add(Arrays.stream(simpleMessages)
+                    .map(m -> m.getTo()[0])
+                    .toList());
+
+            Map<Object, Exception> failures = new LinkedHashMap<>();
+            for (SimpleMailMessage message : simpleMessages) {
+                if (failOnce.remove(message.getTo()[0])) {
+                    failures.put(message, new IllegalStateException("421 try again"));
+                }
+            }
+            if (!failures.isEmpty()) {
+                throw new MailSendException(failures);
+            }
+        }
+
+        boolean awaitDelivered(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (System.currentTimeMillis() < deadline) {
+                if (batches.stream().mapToInt(List::size).sum() >= count) {
+                    return true;
+                }
+                Thread.sleep(10);
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.mahesh.auth.auth_service.service;
+
+import com.mahesh.auth.auth_service.config.ShardRoutingDataSource;
+import com.mahesh.auth.auth_service.config.TestDatabases;
+import com.mahesh.auth.auth_service.config.UserShards;
+import com.mahesh.auth.auth_service.entity.MailOutboxEntity;
+import com.mahesh.auth.auth_service.repository.MailOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs against the embedded H2 database; claims and outcomes commit on their own
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MailOutboxPublisherTests {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final Duration LEASE = Duration.ofMinutes(2);
+    private static final UserShards UNSHARDED = new UserShards(false, new String[0], 1024, "", null);
+
+    @Autowired
+    private MailOutboxRepository mailOutboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<String> sent = new ArrayList<>();
+    private TransactionTemplate transactionTemplate;
+    private MailOutboxPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        mailOutboxRepository.deleteAll();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // Accepts everything except bad@ recipients
+        JavaMailSenderImpl smtp = new JavaMailSenderImpl() {
+            @Override
+            public void send(SimpleMailMessage... messages) {
+                Map<Object, Exception> failed = new LinkedHashMap<>();
+                for (SimpleMailMessage message : messages) {
+                    if (message.getTo()[0].startsWith("bad@")) {
+                        failed.put(message, new IllegalStateException("rejected"));
+                    } else {
+                        sent.add(message.getTo()[0]);
+                    }
+                }
+                if (!failed.isEmpty()) {
+                    throw new MailSendException(failed);
+                }
+            }
+        };
+        MailDispatcher dispatcher = new MailDispatcher(smtp, false, 10, Duration.ofMillis(10),
+                1, 10, 1, Duration.ofMillis(1), false);
+        publisher = new MailOutboxPublisher(mailOutboxRepository, dispatcher, transactionTemplate, UNSHARDED,
+                10, MAX_ATTEMPTS, LEASE, Duration.ofDays(1));
+    }
+
+    @Test
+    void claimLeasesDueRowsAndCountsAnAttempt() {
+        long now = System.currentTimeMillis();
+        save("a@test.com", MailOutboxEntity.Status.PENDING, 0, now);
+        save("b@test.com", MailOutboxEntity.Status.PENDING, 0, now);
+        save("later@test.com", MailOutboxEntity.Status.PENDING, 0, now + 60_000);
+
+        List<MailOutboxEntity> claimed = publisher.claimBatch();
+
+        assertEquals(2, claimed.size());
+        for (MailOutboxEntity row : mailOutboxRepository.findAllById(claimed.stream().map(MailOutboxEntity::getId).toList())) {
+            assertEquals(MailOutboxEntity.Status.PROCESSING, row.getStatus());
+            assertEquals(1, row.getAttempts());
+            assertTrue(row.getAvailableAt() >= now + LEASE.toMillis());
+        }
+        // Leased rows are not claimed again while the lease runs
+        assertEquals(0, publisher.claimBatch().size());
+    }
+
+    @Test
+    void expiredLeaseIsReclaimedUntilAttemptsRunOut() {
+        long past = System.currentTimeMillis() - 1;
+        MailOutboxEntity hung = save("hung@test.com", MailOutboxEntity.Status.PROCESSING, MAX_ATTEMPTS - 1, past);
+
+        List<MailOutboxEntity> claimed = publisher.claimBatch();
+        assertEquals(1, claimed.size());
+        assertEquals(MAX_ATTEMPTS, claimed.get(0).getAttempts());
+
+        // The sender dies again; the lease runs out once more
+        expireLease(hung.getId());
+        assertEquals(0, publisher.claimBatch().size());
+        MailOutboxEntity failed = mailOutboxRepository.findById(hung.getId()).orElseThrow();
+        assertEquals(MailOutboxEntity.Status.FAILED, failed.getStatus());
+        assertNull(failed.getBody());
+    }
+
+    @Test
+    void deliveryRecordsSentAndRetriesFailures() {
+        long now = System.currentTimeMillis();
+        MailOutboxEntity ok = save("ok@test.com", MailOutboxEntity.Status.PENDING, 0, now);
+        MailOutboxEntity bad = save("bad@test.com", MailOutboxEntity.Status.PENDING, 0, now);
+
+        publisher.publish();
+
+        assertEquals(List.of("ok@test.com"), sent);
+        MailOutboxEntity delivered = mailOutboxRepository.findById(ok.getId()).orElseThrow();
+        assertEquals(MailOutboxEntity.Status.SENT, delivered.getStatus());
+        assertNull(delivered.getBody());
+        MailOutboxEntity retried = mailOutboxRepository.findById(bad.getId()).orElseThrow();
+        assertEquals(MailOutboxEntity.Status.PENDING, retried.getStatus());
+        assertEquals(1, retried.getAttempts());
+        assertTrue(retried.getAvailableAt() > now);
+        // Still needed for the retry
+        assertEquals("Body", retried.getBody());
+    }
+
+    @Test
+    void purgeRemovesSentAndFailedRowsPastRetention() {
+        long now = System.currentTimeMillis();
+        save("sent@test.com", MailOutboxEntity.Status.SENT, 1, now);
+        save("failed@test.com", MailOutboxEntity.Status.FAILED, MAX_ATTEMPTS, now);
+        MailOutboxEntity pending = save("pending@test.com", MailOutboxEntity.Status.PENDING, 0, now);
+
+        MailDispatcher dispatcher = new MailDispatcher(new JavaMailSenderImpl(), false, 10, Duration.ofMillis(10),
+                1, 10, 1, Duration.ofMillis(1), false);
+        new MailOutboxPublisher(mailOutboxRepository, dispatcher, transactionTemplate, UNSHARDED,
+                10, MAX_ATTEMPTS, LEASE, Duration.ofMillis(-1)).purgeFinished();
+
+        assertEquals(List.of(pending.getId()),
+                mailOutboxRepository.findAll().stream().map(MailOutboxEntity::getId).toList());
+    }
+
+    @Test
+    void lockedRowsAreSkippedByOtherClaimers() throws Exception {
+        // Two rows due earlier than the others, so the first claimer locks exactly those
+        // (H2, unlike InnoDB, locks every row the LIMIT query reads)
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 4; i++) {
+            save("user" + i + "@test.com", MailOutboxEntity.Status.PENDING, 0, i < 2 ? now - 1000 : now);
+        }
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<List<Long>> first = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            List<Long> ids = mailOutboxRepository.lockDueBatch(now - 500, 10).stream().map(MailOutboxEntity::getId).toList();
+            locked.countDown();
+            await(release);
+            return ids;
+        }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        List<Long> second = transactionTemplate.execute(status ->
+                mailOutboxRepository.lockDueBatch(now, 10).stream().map(MailOutboxEntity::getId).toList());
+        release.countDown();
+
+        assertEquals(2, second.size());
+        assertTrue(first.get(5, TimeUnit.SECONDS).stream().noneMatch(second::contains));
+    }
+
+    @Test
+    void leaseMustOutlastRetryBackoff() {
+        MailDispatcher slowRetries = new MailDispatcher(new JavaMailSenderImpl(), false, 10, Duration.ofMillis(10),
+                1, 10, 5, Duration.ofSeconds(10), false);
+
+        assertThrows(IllegalStateException.class, () -> new MailOutboxPublisher(mailOutboxRepository, slowRetries,
+                transactionTemplate, UNSHARDED, 10, MAX_ATTEMPTS, Duration.ofMinutes(2), Duration.ofDays(1)));
+    }
+
+    @Test
+    void publishDrainsAndPurgesEveryShard() {
+        List<DataSource> shards = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            shards.add(TestDatabases.create("shard-" + i));
+        }
+        DataSource routing = new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shards));
+        DataSourceTransactionManager shardTransactions = new DataSourceTransactionManager(routing);
+        UserShards userShards = new UserShards(true, new String[]{"shard-1-url", "shard-2-url"}, 16, "",
+                shardTransactions);
+        JdbcTemplate jdbc = new JdbcTemplate(routing);
+
+        // Each shard's outbox holds one due email, addressed to that shard
+        List<String> drained = new ArrayList<>();
+        List<String> saved = new ArrayList<>();
+        List<String> purged = new ArrayList<>();
+        MailOutboxRepository shardedRepository = (MailOutboxRepository) Proxy.newProxyInstance(
+                MailOutboxRepository.class.getClassLoader(),
+                new Class<?>[]{MailOutboxRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "lockDueBatch" -> {
+                        String shard = TestDatabases.marker(jdbc);
+                        if (drained.contains(shard)) {
+                            yield List.of();
+                        }
+                        drained.add(shard);
+                        yield List.of(MailOutboxEntity.builder()
+                                .id(1L)
+                                .recipient(shard + "@test.com")
+                                .body("Body")
+                                .status(MailOutboxEntity.Status.PENDING)
+                                .attempts(0)
+                                .build());
+                    }
+                    case "saveAll" -> {
+                        saved.add(TestDatabases.marker(jdbc));
+                        yield args[0];
+                    }
+                    case "deleteByStatusInBefore" -> {
+                        purged.add(TestDatabases.marker(jdbc));
+                        yield 1;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        MailDispatcher dispatcher = new MailDispatcher(new JavaMailSenderImpl() {
+            @Override
+            public void send(SimpleMailMessage... messages) {
+                for (SimpleMailMessage message : messages) {
+                    sent.add(message.getTo()[0]);
+                }
+            }
+        }, false, 10, Duration.ofMillis(10), 1, 10, 1, Duration.ofMillis(1), false);
+        MailOutboxPublisher sharded = new MailOutboxPublisher(shardedRepository, dispatcher,
+                new TransactionTemplate(shardTransactions), userShards, 10, MAX_ATTEMPTS, LEASE, Duration.ofDays(1));
+
+        sharded.publish();
+        sharded.purgeFinished();
+
+        List<String> all = List.of("shard-0", "shard-1", "shard-2");
+        assertEquals(List.of("shard-0@test.com", "shard-1@test.com", "shard-2@test.com"), sent);
+        // Outcomes are recorded on the shard the row was claimed from
+        assertEquals(all, saved);
+        assertEquals(all, purged);
+    }
+
+    private MailOutboxEntity save(String recipient, MailOutboxEntity.Status status, int attempts, long availableAt) {
+        return mailOutboxRepository.save(MailOutboxEntity.builder()
+                .recipient(recipient)
+                .sender("noreply@test.com")
+                .subject("Subject")
+                .body("Body")
+                .status(status)
+                .attempts(attempts)
+                .availableAt(availableAt)
+                .build());
+    }
+
+    private void expireLease(Long id) {
+        MailOutboxEntity row = mailOutboxRepository.findById(id).orElseThrow();
+        row.setAvailableAt(System.currentTimeMillis() - 1);
+        mailOutboxRepository.save(row);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.mahesh.auth.auth_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OtpAttemptServiceTests {
+
+    private static final String EMAIL = "user@example.com";
+
+    private final OtpAttemptService service = new OtpAttemptService(new SimpleMeterRegistry(), true,
+            3, 100, Duration.ofMinutes(1), Duration.ofHours(1), 1000);
+
+    @Test
+    void locksUserAfterMaxFailuresWithDoublingDuration() {
+        service.recordFailure(EMAIL, "10.0.0.1");
+        service.recordFailure(EMAIL, "10.0.0.1");
+        assertDoesNotThrow(() -> service.checkNotLocked(EMAIL, "10.0.0.1"));
+
+        OtpAttemptService.Attempts first = service.recordFailure(EMAIL, "10.0.0.1");
+        assertEquals(1, first.lockouts());
+        assertThrows(RateLimitExceededException.class, () -> service.checkNotLocked(EMAIL, "10.0.0.9"));
+
+        service.recordFailure(EMAIL, "10.0.0.1");
+        service.recordFailure(EMAIL, "10.0.0.1");
+        OtpAttemptService.Attempts second = service.recordFailure(EMAIL, "10.0.0.1");
+        assertEquals(2, second.lockouts());
+        long now = System.currentTimeMillis();
+        assertTrue(second.lockedUntil() - now > Duration.ofSeconds(90).toMillis());
+    }
+
+    @Test
+    void successClearsUserState() {
+        service.recordFailure(EMAIL, null);
+        service.recordFailure(EMAIL, null);
+        service.recordSuccess(EMAIL);
+
+        assertEquals(1, service.recordFailure(EMAIL, null).failures());
+    }
+
+    @Test
+    void restoresPersistedLockout() {
+        OtpAttemptService.Attempts persisted =
+                new OtpAttemptService.Attempts(0, 1, System.currentTimeMillis() + 60_000);
+
+        assertThrows(RateLimitExceededException.class, () -> service.restore(EMAIL, persisted));
+        assertThrows(RateLimitExceededException.class, () -> service.checkNotLocked(EMAIL, null));
+    }
+}
@@ -0,0 +1,208 @@
+package com.mahesh.auth.auth_service.service;
+
+import com.mahesh.auth.auth_service.config.ReadYourWritesTracker;
+import com.mahesh.auth.auth_service.config.UserShards;
+import com.mahesh.auth.auth_service.io.ProfileRequest;
+import com.mahesh.auth.auth_service.repository.RefreshTokenRepository;
+import com.mahesh.auth.auth_service.repository.RevokedTokenRepository;
+import com.mahesh.auth.auth_service.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Runs against the embedded H2 database; each registration commits on its own
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProfileServiceImplTests {
+
+    private static final String EMAIL = "taken@example.com";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final InMemoryOtpStore otpStore =
+            new InMemoryOtpStore(Duration.ofSeconds(1), 8, new OtpHasher("otp-test-secret"));
+    // Records whether each hash ran while a transaction (and its connection) was open
+    private final List<Boolean> hashedInTransaction = new CopyOnWriteArrayList<>();
+    private final PasswordEncoder passwordEncoder = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            hashedInTransaction.add(TransactionSynchronizationManager.isActualTransactionActive());
+            return "{noop}" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encodedPassword.equals("{noop}" + rawPassword);
+        }
+    };
+
+    private ProfileServiceImpl profileService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        revokedTokenRepository.deleteAll();
+
+        // Welcome emails are dropped
+        MailDispatcher mailDispatcher = new MailDispatcher(new JavaMailSenderImpl(), false, 1, Duration.ZERO,
+                1, 1, 1, Duration.ZERO, false) {
+            @Override
+            public void submit(SimpleMailMessage message) {
+            }
+        };
+        UserShards userShards = new UserShards(false, new String[0], 1024, "", null);
+        profileService = new ProfileServiceImpl(
+                userRepository,
+                passwordEncoder,
+                new EmailService(mailDispatcher, null),
+                new UserDetailsCache(false, 1, Duration.ofMinutes(1)),
+                new RefreshTokenService(refreshTokenRepository, Duration.ofDays(14), Duration.ofSeconds(10)),
+                new TokenRevocationService(revokedTokenRepository, Duration.ofMinutes(15), 1000, Duration.ofMinutes(1)),
+                otpStore,
+                new OtpAttemptService(new SimpleMeterRegistry(), false, 5, 20,
+                        Duration.ofMinutes(1), Duration.ofHours(1), 1),
+                new ReadYourWritesTracker(false, Duration.ofSeconds(5)),
+                userShards,
+                new SimpleMeterRegistry(),
+                new TransactionTemplate(transactionManager));
+    }
+
+    @Test
+    void passwordsAreHashedBeforeTheTransactionOpens() {
+        profileService.createProfile(new ProfileRequest("Hashed", EMAIL, "password123"));
+
+        otpStore.put(EMAIL, OtpStore.Purpose.RESET, "123456", Duration.ofMinutes(15));
+        profileService.resetPassword(EMAIL, "123456", "newPassword123", "10.0.0.1");
+
+        assertEquals(List.of(false, false), hashedInTransaction);
+        assertEquals("{noop}newPassword123",
+                userRepository.findCredentialsByEmail(EMAIL).orElseThrow().password());
+        assertEquals(1, revokedTokenRepository.count());
+    }
+
+    @Test
+    void wrongResetOtpKeepsThePassword() {
+        profileService.createProfile(new ProfileRequest("Hashed", EMAIL, "password123"));
+        otpStore.put(EMAIL, OtpStore.Purpose.RESET, "123456", Duration.ofMinutes(15));
+
+        assertThrows(InvalidOtpException.class,
+                () -> profileService.resetPassword(EMAIL, "654321", "newPassword123", "10.0.0.1"));
+        assertEquals("{noop}password123", userRepository.findCredentialsByEmail(EMAIL).orElseThrow().password());
+    }
+
+    @Test
+    void duplicateEmailIsConflict() {
+        profileService.createProfile(new ProfileRequest("First", EMAIL, "password123"));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> profileService.createProfile(new ProfileRequest("Second", EMAIL, "password123")));
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        assertEquals(1, userRepository.count());
+    }
+
+    @Test
+    void duplicateEmailUnderAGeneratedConstraintNameIsConflict() {
+        // Schemas created by older builds carry Hibernate's generated key name
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("ALTER TABLE tbl_users DROP CONSTRAINT uk_users_email");
+        jdbc.execute("ALTER TABLE tbl_users ADD CONSTRAINT UK6dotkott2kjsp8vw4d0m25fb7 UNIQUE (email)");
+        try {
+            profileService.createProfile(new ProfileRequest("First", EMAIL, "password123"));
+
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                    () -> profileService.createProfile(new ProfileRequest("Second", EMAIL, "password123")));
+            assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        } finally {
+            jdbc.execute("ALTER TABLE tbl_users DROP CONSTRAINT UK6dotkott2kjsp8vw4d0m25fb7");
+            jdbc.execute("ALTER TABLE tbl_users ADD CONSTRAINT uk_users_email UNIQUE (email)");
+        }
+    }
+
+    @Test
+    void concurrentRegistrationsOfOneEmailHaveOneWinner() throws Exception {
+        int callers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<?>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(callers)) {
+            for (int i = 0; i < callers; i++) {
+                String name = "User " + i;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return profileService.createProfile(new ProfileRequest(name, EMAIL, "password123"));
+                }));
+            }
+            start.countDown();
+
+            int created = 0;
+            for (Future<?> result : results) {
+                try {
+                    result.get(10, TimeUnit.SECONDS);
+                    created++;
+                } catch (ExecutionException ex) {
+                    ResponseStatusException conflict = assertInstanceOf(ResponseStatusException.class, ex.getCause());
+                    assertEquals(HttpStatus.CONFLICT, conflict.getStatusCode());
+                }
+            }
+            assertEquals(1, created);
+            assertEquals(1, userRepository.count());
+        }
+    }
+
+    @Test
+    void primaryKeyCollisionIsNotConflict() {
+        profileService.createProfile(new ProfileRequest("Seeded", "seeded@example.com", "password123"));
+        long id = userRepository.findAll().getFirst().getId();
+
+        // A row written behind the sequence's back, as after an unseeded migration
+        new JdbcTemplate(dataSource).update(
+                "INSERT INTO tbl_users (id, user_id, name, email, password, is_account_verified) VALUES (?, ?, ?, ?, ?, ?)",
+                id + 1, "legacy", "Legacy", "legacy@example.com", "x", false);
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> profileService.createProfile(new ProfileRequest("New", "new@example.com", "password123")));
+    }
+}
@@ -0,0 +1,99 @@
+package com.mahesh.auth.auth_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitServiceTests {
+
+    private static final String OPEN = "1000/1s";
+
+    private static RateLimitService limiter(RateLimitStore store, SimpleMeterRegistry registry,
+                                            String loginPerEmail) {
+        return limiter(store, registry, loginPerEmail, OPEN);
+    }
+
+    private static RateLimitService limiter(RateLimitStore store, SimpleMeterRegistry registry,
+                                            String loginPerEmail, String loginGlobal) {
+        return new RateLimitService(store, registry, true,
+                loginPerEmail, OPEN, loginGlobal,
+                OPEN, OPEN, OPEN,
+                OPEN, OPEN, OPEN);
+    }
+
+    @Test
+    void allowsBurstThenRejects() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RateLimitService service = limiter(new InMemoryRateLimitStore(), registry, "3/1h");
+
+        for (int i = 0; i < 3; i++) {
+            service.check(RateLimitService.Action.LOGIN, "10.0.0.1", "user@example.com");
+        }
+        RateLimitExceededException ex = assertThrows(RateLimitExceededException.class,
+                () -> service.check(RateLimitService.Action.LOGIN, "10.0.0.2", "USER@example.com"));
+
+        assertTrue(Long.parseLong(ex.getHeaders().getFirst("Retry-After")) > 0);
+        assertEquals(1.0, registry.get("auth.ratelimit.rejected")
+                .tag("action", "login").tag("scope", "email").counter().count());
+
+        // Other actions and other users have their own buckets
+        service.check(RateLimitService.Action.SEND_OTP, "10.0.0.1", "user@example.com");
+        service.check(RateLimitService.Action.LOGIN, "10.0.0.1", "other@example.com");
+    }
+
+    @Test
+    void sharedStoreLimitsAcrossInstances() {
+        InMemoryRateLimitStore shared = new InMemoryRateLimitStore();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RateLimitService nodeA = limiter(shared, registry, "2/1h");
+        RateLimitService nodeB = limiter(shared, registry, "2/1h");
+
+        nodeA.check(RateLimitService.Action.LOGIN, "10.0.0.1", "user@example.com");
+        nodeB.check(RateLimitService.Action.LOGIN, "10.0.0.1", "user@example.com");
+
+        assertThrows(RateLimitExceededException.class,
+                () -> nodeA.check(RateLimitService.Action.LOGIN, "10.0.0.1", "user@example.com"));
+    }
+
+    @Test
+    void globalRejectionDoesNotChargeNarrowScopes() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RateLimitService service = limiter(new InMemoryRateLimitStore(), registry, "2/1h", "1/1h");
+        service.check(RateLimitService.Action.LOGIN, "10.0.0.1", "first@example.com");
+
+        // Each rejected attempt gives its email permit back, so only the global scope ever rejects
+        for (int i = 0; i < 5; i++) {
+            assertThrows(RateLimitExceededException.class,
+                    () -> service.check(RateLimitService.Action.LOGIN, "10.0.0.2", "user@example.com"));
+        }
+        assertEquals(5.0, registry.get("auth.ratelimit.rejected")
+                .tag("action", "login").tag("scope", "global").counter().count());
+        assertEquals(0.0, registry.get("auth.ratelimit.rejected")
+                .tag("action", "login").tag("scope", "email").counter().count());
+    }
+
+    @Test
+    void limitsWithoutPermitsAreRefused() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        for (String spec : new String[] {"0/1m", "-1/1m", "5/0s", "5"}) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> limiter(new InMemoryRateLimitStore(), registry, spec));
+        }
+    }
+
+    @Test
+    void refillsAndPurgesIdleBuckets() {
+        InMemoryRateLimitStore store = new InMemoryRateLimitStore();
+        long interval = 1_000;
+
+        assertEquals(0, store.tryAcquire("k", interval, 0, 0));
+        assertEquals(interval, store.tryAcquire("k", interval, 0, 0));
+        assertEquals(0, store.tryAcquire("k", interval, 0, interval));
+
+        store.purge(interval * 2);
+        assertEquals(0, store.size());
+    }
+}
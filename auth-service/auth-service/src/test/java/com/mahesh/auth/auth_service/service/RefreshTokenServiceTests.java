@@ -0,0 +1,131 @@
+package com.mahesh.auth.auth_service.service;
+
+import com.mahesh.auth.auth_service.entity.RefreshTokenEntity;
+import com.mahesh.auth.auth_service.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Runs against the embedded H2 database; each rotation commits in its own transaction
+@DataJpaTest
+@Import(RefreshTokenService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RefreshTokenServiceTests {
+
+    private static final String EMAIL = "refresh@example.com";
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenRepository.deleteAll();
+    }
+
+    @Test
+    void rotationIsSingleUse() {
+        String first = refreshTokenService.issue(EMAIL);
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(first);
+        assertEquals(EMAIL, rotation.email());
+        assertNotEquals(first, rotation.refreshToken());
+
+        endReuseGrace();
+        assertEquals("Refresh token reuse detected",
+                assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate(first))
+                        .getReason());
+    }
+
+    @Test
+    void reuseRevokesTheWholeFamily() {
+        String first = refreshTokenService.issue(EMAIL);
+        String second = refreshTokenService.rotate(first).refreshToken();
+        endReuseGrace();
+
+        // Replaying the old token kills the token the legitimate client holds
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate(first));
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate(second));
+
+        // Other logins of the same user are untouched
+        String other = refreshTokenService.issue(EMAIL);
+        assertEquals(EMAIL, refreshTokenService.rotate(other).email());
+    }
+
+    @Test
+    void reuseWithinTheGraceWindowIsAConflict() {
+        String first = refreshTokenService.issue(EMAIL);
+        String second = refreshTokenService.rotate(first).refreshToken();
+
+        // A second tab sent the old cookie before the new one arrived
+        assertThrows(RefreshTokenRotatedException.class, () -> refreshTokenService.rotate(first));
+
+        // The family survives, so the retry with the new cookie works
+        assertEquals(EMAIL, refreshTokenService.rotate(second).email());
+    }
+
+    @Test
+    void concurrentRotationsHaveExactlyOneWinner() throws Exception {
+        String token = refreshTokenService.issue(EMAIL);
+        int callers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<RefreshTokenService.Rotation>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(callers)) {
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return refreshTokenService.rotate(token);
+                }));
+            }
+            start.countDown();
+
+            List<String> issued = new ArrayList<>();
+            int rejected = 0;
+            for (Future<RefreshTokenService.Rotation> result : results) {
+                try {
+                    issued.add(result.get(10, TimeUnit.SECONDS).refreshToken());
+                } catch (ExecutionException ex) {
+                    assertInstanceOf(RefreshTokenRotatedException.class, ex.getCause());
+                    rejected++;
+                }
+            }
+
+            assertEquals(1, issued.size());
+            assertEquals(callers - 1, rejected);
+            // The losers are within the grace window, so the winner's token stays valid
+            assertEquals(EMAIL, refreshTokenService.rotate(issued.get(0)).email());
+        }
+    }
+
+    // Move every rotation past the reuse grace window
+    private void endReuseGrace() {
+        List<RefreshTokenEntity> tokens = refreshTokenRepository.findAll();
+        for (RefreshTokenEntity token : tokens) {
+            if (token.getRotatedAt() != null) {
+                token.setRotatedAt(token.getRotatedAt() - 60_000);
+            }
+        }
+        refreshTokenRepository.saveAll(tokens);
+    }
+}
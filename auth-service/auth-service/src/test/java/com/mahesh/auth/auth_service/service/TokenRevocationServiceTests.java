@@ -0,0 +1,156 @@
+package com.mahesh.auth.auth_service.service;
+
+import com.mahesh.auth.auth_service.entity.RevokedTokenEntity;
+import com.mahesh.auth.auth_service.repository.RevokedTokenRepository;
+import com.mahesh.auth.auth_service.util.JwtUtil;
+import com.mahesh.auth.auth_service.util.TestSigningKeys;
+import com.mahesh.auth.auth_service.util.VerifiedToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs against the embedded H2 database; two services stand for two instances
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TokenRevocationServiceTests {
+
+    private static final String EMAIL = "revoked@example.com";
+    private static final Duration TTL = Duration.ofMinutes(15);
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TokenRevocationService writer;
+    private TokenRevocationService reader;
+
+    @BeforeEach
+    void setUp() {
+        revokedTokenRepository.deleteAll();
+        writer = new TokenRevocationService(revokedTokenRepository, TTL, 1000, Duration.ofMinutes(1));
+        reader = new TokenRevocationService(revokedTokenRepository, TTL, 1000, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void revokedTokenIsSeenByOtherInstancesAfterSync() {
+        VerifiedToken token = token("jti-1", System.currentTimeMillis());
+        writer.revoke(token);
+        assertTrue(writer.isRevoked(token));
+        assertFalse(reader.isRevoked(token));
+
+        reader.sync();
+        assertTrue(reader.isRevoked(token));
+        assertFalse(reader.isRevoked(token("jti-2", System.currentTimeMillis())));
+    }
+
+    @Test
+    void userRevocationComparesAtMillisecondPrecision() {
+        long revokedAt = System.currentTimeMillis() / 1000 * 1000 + 500;
+        saveUserRevocation(revokedAt);
+        reader.sync();
+
+        // Earlier in the same second is still before the revocation
+        assertTrue(reader.isRevoked(token("same-second-before", revokedAt - 1)));
+        assertFalse(reader.isRevoked(token("at-revocation", revokedAt)));
+        assertFalse(reader.isRevoked(token("same-second-after", revokedAt + 1)));
+    }
+
+    @Test
+    void issuedTokensCarryMillisecondIssueTime() {
+        JwtUtil jwtUtil = new JwtUtil(TestSigningKeys.hmac("revocation-test-secret-key-with-32-bytes"), TTL);
+        VerifiedToken token = jwtUtil.verifyToken(
+                jwtUtil.generateToken(User.withUsername(EMAIL).password("x").build()));
+
+        // Revoked one millisecond after issue, within the same second as iat
+        saveUserRevocation(token.getIssuedAt().getTime() + 1);
+        reader.sync();
+
+        assertTrue(reader.isRevoked(token));
+    }
+
+    @Test
+    void rowThatCommitsAfterANewerOneIsNotSkipped() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        long now = System.currentTimeMillis();
+
+        // Slow transaction: gets the lower id but commits last
+        CompletableFuture<Void> slow = CompletableFuture.runAsync(() ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    revokedTokenRepository.saveAndFlush(row("slow", now - 2000));
+                    inserted.countDown();
+                    await(commit);
+                }));
+        assertTrue(inserted.await(5, TimeUnit.SECONDS));
+
+        revokedTokenRepository.save(row("fast", now));
+        reader.sync();
+        assertTrue(reader.isRevoked(token("fast", now)));
+        assertFalse(reader.isRevoked(token("slow", now)));
+
+        commit.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+
+        reader.sync();
+        assertTrue(reader.isRevoked(token("slow", now)));
+    }
+
+    @Test
+    void overlappingSyncsDoNotDuplicateEntries() {
+        long now = System.currentTimeMillis();
+        revokedTokenRepository.save(row("jti-a", now));
+        revokedTokenRepository.save(row("jti-b", now));
+
+        reader.sync();
+        reader.sync();
+        assertEquals(2, reader.getRevokedTokenCount());
+    }
+
+    private void saveUserRevocation(long revokedAt) {
+        revokedTokenRepository.save(RevokedTokenEntity.builder()
+                .email(EMAIL)
+                .revokedAt(revokedAt)
+                .expiresAt(revokedAt + TTL.toMillis())
+                .build());
+    }
+
+    private static RevokedTokenEntity row(String jti, long revokedAt) {
+        return RevokedTokenEntity.builder()
+                .jti(jti)
+                .email(EMAIL)
+                .revokedAt(revokedAt)
+                .expiresAt(revokedAt + TTL.toMillis())
+                .build();
+    }
+
+    private static VerifiedToken token(String jti, long issuedAt) {
+        return new VerifiedToken(EMAIL, jti, new Date(issuedAt), new Date(issuedAt + TTL.toMillis()), null);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
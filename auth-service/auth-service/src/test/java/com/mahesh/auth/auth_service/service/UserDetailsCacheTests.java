@@ -0,0 +1,132 @@
+package com.mahesh.auth.auth_service.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserDetailsCacheTests {
+
+    private static final String EMAIL = "user@example.com";
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private String storedPassword = "{noop}old";
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void cachesUntilInvalidated() {
+        UserDetailsCache cache = new UserDetailsCache(true, 10, Duration.ofMinutes(5));
+
+        AppUserPrincipal first = cache.get(EMAIL, this::load);
+        first.eraseCredentials();
+        AppUserPrincipal second = cache.get(EMAIL, this::load);
+
+        assertEquals(1, loads.get());
+        // Erasing credentials on one principal does not reach the cached snapshot
+        assertNotSame(first, second);
+        assertEquals("{noop}old", second.getPassword());
+
+        storedPassword = "{noop}new";
+        cache.invalidate(EMAIL);
+        assertEquals("{noop}new", cache.get(EMAIL, this::load).getPassword());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidatesAgainAfterCommit() {
+        UserDetailsCache cache = new UserDetailsCache(true, 10, Duration.ofMinutes(5));
+        cache.get(EMAIL, this::load);
+
+        TransactionSynchronizationManager.initSynchronization();
+        storedPassword = "{noop}new";
+        cache.invalidate(EMAIL);
+        // A concurrent login before commit still reads the old row and caches it
+        storedPassword = "{noop}old";
+        assertEquals("{noop}old", cache.get(EMAIL, this::load).getPassword());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        storedPassword = "{noop}new";
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals("{noop}new", cache.get(EMAIL, this::load).getPassword());
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        UserDetailsCache cache = new UserDetailsCache(true, 10, Duration.ofMinutes(5));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<AppUserPrincipal> first = callers.submit(() -> cache.get(EMAIL, email -> {
+                loading.countDown();
+                await(release);
+                return load(email);
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            Future<AppUserPrincipal> second = callers.submit(() -> cache.get(EMAIL, this::load));
+            release.countDown();
+
+            assertEquals("{noop}old", first.get(5, TimeUnit.SECONDS).getPassword());
+            assertEquals("{noop}old", second.get(5, TimeUnit.SECONDS).getPassword());
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void failedLoadIsRethrownAndNotCached() {
+        UserDetailsCache cache = new UserDetailsCache(true, 10, Duration.ofMinutes(5));
+
+        assertThrows(UsernameNotFoundException.class, () -> cache.get(EMAIL, email -> {
+            throw new UsernameNotFoundException(email);
+        }));
+
+        assertEquals("{noop}old", cache.get(EMAIL, this::load).getPassword());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void disabledCacheAlwaysLoads() {
+        UserDetailsCache cache = new UserDetailsCache(false, 10, Duration.ofMinutes(5));
+
+        cache.get(EMAIL, this::load);
+        cache.get(EMAIL, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    private AppUserPrincipal load(String email) {
+        loads.incrementAndGet();
+        return new AppUserPrincipal(email, storedPassword, List.of(), "user-id", "User", true);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.mahesh.auth.auth_service.service;
+
+import com.mahesh.auth.auth_service.config.BoundedPasswordEncoder;
+import com.mahesh.auth.auth_service.config.PasswordEncoders;
+import com.mahesh.auth.auth_service.config.UserShards;
+import com.mahesh.auth.auth_service.io.ImportReport;
+import com.mahesh.auth.auth_service.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs against the embedded H2 database; each chunk commits on its own
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true"
+})
+@Slf4j
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserImportServiceTests {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private BoundedPasswordEncoder passwordEncoder;
+    private UserImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        passwordEncoder = new BoundedPasswordEncoder(
+                PasswordEncoders.delegating(PasswordEncoders.BCRYPT, 4), 1, 1);
+        importService = new UserImportService(userRepository, entityManager,
+                new TransactionTemplate(transactionManager), passwordEncoder, null,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                JsonMapper.builder().build(), new UserShards(false, new String[0], 1024, "", null),
+                2, 2, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAllInBatch();
+        passwordEncoder.close();
+    }
+
+    @Test
+    void importsNdjsonAndReportsRowErrors() throws IOException {
+        String input = """
+                {"name":"Ann","email":"ann@example.com","password":"password123"}
+                {"name":"Bob","email":"bob@example.com","password":"short"}
+                not json
+                {"name":"Ann again","email":"ANN@example.com","password":"password123"}
+                {"name":"Cid","email":"cid@example.com","password":"password123"}
+                """;
+
+        ImportReport report = importService.importUsers(
+                new StringReader(input), UserImportService.Format.NDJSON, false);
+
+        assertEquals(5, report.getTotal());
+        assertEquals(2, report.getImported());
+        assertEquals(3, report.getFailed());
+        assertEquals(2, userRepository.count());
+        assertEquals(2L, report.getErrors().get(0).line());
+        assertTrue(userRepository.findCredentialsByEmail("cid@example.com").orElseThrow()
+                .password().startsWith("{bcrypt}"));
+    }
+
+    @Test
+    void importsCsvAndSkipsExistingUsers() throws IOException {
+        importService.importUsers(new StringReader("""
+                name,email,password
+                Ann,ann@example.com,password123
+                """), UserImportService.Format.CSV, false);
+
+        ImportReport report = importService.importUsers(new StringReader("""
+                email,password,name
+                ann@example.com,password123,Ann
+                dan@example.com,"pass,word""1",Dan
+                """), UserImportService.Format.CSV, false);
+
+        assertEquals(1, report.getImported());
+        assertEquals("Email already exists", report.getErrors().get(0).message());
+        assertEquals("Dan", userRepository.findProfileByEmail("dan@example.com").orElseThrow().name());
+    }
+
+    /**
+     * Throughput against H2:
+     *
+     *   mvn -P load-test test -Dtest=UserImportServiceTests -Dimport.rows=100000
+     */
+    @Test
+    @Tag("load")
+    void importThroughput() throws IOException {
+        int rows = Integer.getInteger("import.rows", 100_000);
+        importService = new UserImportService(userRepository, entityManager,
+                new TransactionTemplate(transactionManager), passwordEncoder, null,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                JsonMapper.builder().build(), new UserShards(false, new String[0], 1024, "", null),
+                1000, 0, 100);
+
+        String input = IntStream.range(0, rows)
+                .mapToObj(i -> "{\"name\":\"User " + i + "\",\"email\":\"user" + i
+                        + "@example.com\",\"password\":\"password123\"}")
+                .collect(Collectors.joining("\n"));
+
+        ImportReport report = importService.importUsers(
+                new StringReader(input), UserImportService.Format.NDJSON, false);
+
+        log.info("Imported {} users in {} ms ({} rows/s)",
+                report.getImported(), report.getElapsedMillis(), Math.round(report.getRowsPerSecond()));
+        assertEquals(rows, report.getImported());
+        assertTrue(report.getRowsPerSecond() > 0);
+    }
+}
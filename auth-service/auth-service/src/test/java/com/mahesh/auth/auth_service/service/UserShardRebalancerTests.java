@@ -0,0 +1,109 @@
+package com.mahesh.auth.auth_service.service;
+
+import com.mahesh.auth.auth_service.config.ShardRoutingDataSource;
+import com.mahesh.auth.auth_service.config.TestDatabases;
+import com.mahesh.auth.auth_service.config.UserShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Three embedded H2 shards. All users start on shard 0, as after enabling
+ * sharding on an existing database, and are spread by the rebalancer.
+ */
+class UserShardRebalancerTests {
+
+    private static final int USERS = 40;
+
+    // Same tables as Hibernate generates on MySQL (tbl_users_seq is a one-row table there)
+    private static final String[] SCHEMA = {
+            "CREATE TABLE tbl_users (id BIGINT PRIMARY KEY, user_id VARCHAR(64), name VARCHAR(255), "
+                    + "email VARCHAR(255) NOT NULL UNIQUE, password VARCHAR(255), is_account_verified BOOLEAN)",
+            "CREATE TABLE tbl_otps (id VARCHAR(255) PRIMARY KEY, otp_hash VARCHAR(64), expires_at BIGINT)",
+            "CREATE TABLE tbl_users_seq (next_val BIGINT)",
+            "INSERT INTO tbl_users_seq VALUES (1)"
+    };
+
+    private final List<DataSource> shards = new ArrayList<>();
+    private final List<String> emails = new ArrayList<>();
+
+    private UserShards userShards;
+    private UserShardRebalancer rebalancer;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 3; i++) {
+            shards.add(TestDatabases.create("shard-" + i, SCHEMA));
+        }
+        JdbcTemplate home = shard(0);
+        for (int i = 1; i <= USERS; i++) {
+            String email = "user" + i + "@example.com";
+            emails.add(email);
+            home.update("INSERT INTO tbl_users (id, user_id, name, email, password, is_account_verified) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)", i, UUID.randomUUID().toString(), "User " + i, email, "{noop}pw", i % 2 == 0);
+            home.update("INSERT INTO tbl_otps VALUES (?, ?, ?)", "VERIFY:" + email, "hash", Long.MAX_VALUE);
+        }
+
+        DataSource routing = new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shards));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        userShards = new UserShards(true, new String[]{"shard-1-url", "shard-2-url"}, 16, "", transactionManager);
+        rebalancer = new UserShardRebalancer(userShards, routing, transactionManager, 7);
+    }
+
+    @Test
+    void usersEndUpOnlyOnTheirShard() {
+        long expectedMoves = emails.stream().filter(email -> userShards.shardOf(email) != 0).count();
+
+        UserShardRebalancer.Result result = rebalancer.rebalance();
+
+        assertEquals(expectedMoves, result.moved());
+        assertTrue(expectedMoves > 0);
+        for (String email : emails) {
+            for (int shard = 0; shard < 3; shard++) {
+                int expected = userShards.shardOf(email) == shard ? 1 : 0;
+                assertEquals(expected, count(shard, "SELECT COUNT(*) FROM tbl_users WHERE email = ?", email), email);
+            }
+        }
+        // Moved users keep their row (id, flags); their pending OTPs are dropped
+        assertEquals(USERS, count(0, "SELECT COUNT(*) FROM tbl_users") + count(1, "SELECT COUNT(*) FROM tbl_users")
+                + count(2, "SELECT COUNT(*) FROM tbl_users"));
+        assertEquals(USERS - expectedMoves, count(0, "SELECT COUNT(*) FROM tbl_otps"));
+
+        // Id ranges reserved
+        assertEquals(UserShards.ID_RANGE, shard(1).queryForObject("SELECT next_val FROM tbl_users_seq", Long.class));
+        assertEquals(2 * UserShards.ID_RANGE, shard(2).queryForObject("SELECT next_val FROM tbl_users_seq", Long.class));
+
+        assertEquals(0, rebalancer.rebalance().moved());
+    }
+
+    @Test
+    void interruptedMoveIsCompleted() {
+        String email = emails.stream().filter(e -> userShards.shardOf(e) == 2).findFirst().orElseThrow();
+        // Copied to the target, but the source delete never happened
+        shard(2).update("INSERT INTO tbl_users (id, user_id, name, email, password, is_account_verified) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", 1000, "copied", "User", email, "{noop}pw", false);
+
+        rebalancer.rebalance();
+
+        assertEquals(0, count(0, "SELECT COUNT(*) FROM tbl_users WHERE email = ?", email));
+        assertEquals(1, count(2, "SELECT COUNT(*) FROM tbl_users WHERE email = ?", email));
+    }
+
+    private JdbcTemplate shard(int shard) {
+        return new JdbcTemplate(shards.get(shard));
+    }
+
+    private long count(int shard, String sql, Object... args) {
+        return shard(shard).queryForObject(sql, Long.class, args);
+    }
+}
@@ -0,0 +1,67 @@
+package com.mahesh.auth.auth_service.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTests {
+
+    @Test
+    void neverMissesAnInsertedValue() {
+        BloomFilter filter = new BloomFilter(10_000, 0.001);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("jti-" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("jti-" + i));
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheTarget() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(UUID.randomUUID().toString());
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+        // Target 1%; allow for randomness
+        assertTrue(falsePositives < probes * 0.02, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(100, 0.001);
+        assertFalse(filter.mightContain("jti"));
+        assertFalse(filter.mightContain(""));
+    }
+
+    @Test
+    void concurrentPutsAreAllVisible() {
+        BloomFilter filter = new BloomFilter(50_000, 0.001);
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            IntStream.range(0, 8).forEach(t -> executor.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    filter.put("jti-" + t + "-" + i);
+                }
+            }));
+        }
+        for (int t = 0; t < 8; t++) {
+            for (int i = 0; i < 5_000; i++) {
+                assertTrue(filter.mightContain("jti-" + t + "-" + i));
+            }
+        }
+    }
+}
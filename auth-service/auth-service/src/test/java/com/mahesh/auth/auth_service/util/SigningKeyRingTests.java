@@ -0,0 +1,107 @@
+package com.mahesh.auth.auth_service.util;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SigningKeyRingTests {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef";
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+
+    @Test
+    void startupKeysCountFromTheirCreationDate() {
+        SigningKeyRing ring = ecRing(Duration.ofMinutes(10));
+        long now = System.currentTimeMillis();
+
+        ring.install(List.of(key("old", now - HOUR), key("fresh", now - 60_000)), true);
+        assertEquals("old", ring.getActive().kid());
+
+        ring.install(List.of(key("old", now - 2 * HOUR), key("newer", now - HOUR)), true);
+        assertEquals("newer", ring.getActive().kid());
+    }
+
+    @Test
+    void reloadedKeyIsPublishedBeforeItSigns() throws Exception {
+        SigningKeyRing ring = ecRing(Duration.ofMillis(300));
+        long now = System.currentTimeMillis();
+        ring.install(List.of(key("old", now - HOUR)), true);
+        String etag = ring.getJwksEtag();
+
+        // Backdated entry: the delay still counts from when this instance loaded it
+        ring.install(List.of(key("old", now - HOUR), key("new", now - 30 * 60_000)), false);
+        assertEquals("old", ring.getActive().kid());
+        assertEquals(List.of("old", "new"), ring.publicJwks().stream().map(jwk -> jwk.get("kid")).toList());
+        assertNotEquals(etag, ring.getJwksEtag());
+
+        Thread.sleep(400);
+        ring.reloadIfChanged();
+        assertEquals("new", ring.getActive().kid());
+    }
+
+    @Test
+    void freshRingSignsWithItsOnlyKey() {
+        SigningKeyRing ring = ecRing(Duration.ofMinutes(10));
+        ring.install(List.of(key("only", System.currentTimeMillis())), true);
+        assertEquals("only", ring.getActive().kid());
+    }
+
+    @Test
+    void unknownKidIsRejected() {
+        SigningKeyRing ring = TestSigningKeys.hmac(SECRET);
+        assertNotNull(ring.resolveSigningKey(header("hs-1"), Jwts.claims()));
+        assertThrows(JwtException.class, () -> ring.resolveSigningKey(header("missing"), Jwts.claims()));
+    }
+
+    @Test
+    void kidlessTokensAreRejectedWithoutACutOff() {
+        SigningKeyRing ring = TestSigningKeys.hmac(SECRET);
+        assertThrows(JwtException.class, () -> ring.resolveSigningKey(header(null), Jwts.claims()));
+    }
+
+    @Test
+    void kidlessTokensAreAcceptedUntilTheCutOff() {
+        SigningKeyRing open = legacyRing(Instant.now().plus(Duration.ofHours(1)));
+        assertNotNull(open.resolveSigningKey(header(null), Jwts.claims()));
+
+        SigningKeyRing closed = legacyRing(Instant.now().minus(Duration.ofHours(1)));
+        assertThrows(JwtException.class, () -> closed.resolveSigningKey(header(null), Jwts.claims()));
+    }
+
+    private static SigningKeyRing ecRing(Duration activationDelay) {
+        return new SigningKeyRing("", "ES256", "", "", "", activationDelay, "");
+    }
+
+    private static SigningKeyRing legacyRing(Instant legacyTokensUntil) {
+        return new SigningKeyRing(SECRET, "HS256", "", "", "", Duration.ZERO, legacyTokensUntil.toString());
+    }
+
+    private static SigningKeyRing.SigningKey key(String kid, long createdAt) {
+        KeyPair pair = Keys.keyPairFor(SignatureAlgorithm.ES256);
+        return new SigningKeyRing.SigningKey(kid, SignatureAlgorithm.ES256, pair.getPrivate(), pair.getPublic(),
+                new Date(createdAt));
+    }
+
+    private static JwsHeader header(String kid) {
+        JwsHeader header = Jwts.jwsHeader(Map.of("alg", "HS256"));
+        if (kid != null) {
+            header.setKeyId(kid);
+        }
+        return header;
+    }
+}
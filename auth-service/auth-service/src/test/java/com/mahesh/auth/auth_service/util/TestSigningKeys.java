@@ -0,0 +1,17 @@
+package com.mahesh.auth.auth_service.util;
+
+import java.time.Duration;
+
+/**
+ * HMAC-only signing key rings for tests and benchmarks, so they can mint and
+ * verify tokens without a keystore.
+ */
+public final class TestSigningKeys {
+
+    private TestSigningKeys() {
+    }
+
+    public static SigningKeyRing hmac(String secretKey) {
+        return new SigningKeyRing(secretKey, "HS256", "", "", "", Duration.ZERO, "");
+    }
+}
@@ -0,0 +1,76 @@
+package com.mahesh.auth.auth_service.util;
+
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VerifiedTokenCacheTests {
+
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    @Test
+    void verifiesEachTokenOnce() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 100, Duration.ofMinutes(10));
+        Function<String, VerifiedToken> verifier = verifier(Duration.ofMinutes(15));
+
+        cache.get("token-a", verifier);
+        cache.get("token-a", verifier);
+        cache.get("token-b", verifier);
+        assertEquals(2, verifications.get());
+
+        cache.invalidate("token-a");
+        cache.get("token-a", verifier);
+        assertEquals(3, verifications.get());
+    }
+
+    @Test
+    void entryNeverOutlivesToken() throws InterruptedException {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 100, Duration.ofMinutes(10));
+        Function<String, VerifiedToken> verifier = verifier(Duration.ofMillis(50));
+
+        cache.get("token", verifier);
+        Thread.sleep(100);
+        cache.get("token", verifier);
+
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 100, Duration.ofMinutes(10));
+        Function<String, VerifiedToken> failing = token -> {
+            verifications.incrementAndGet();
+            throw new JwtException("bad signature");
+        };
+
+        assertThrows(JwtException.class, () -> cache.get("token", failing));
+        assertThrows(JwtException.class, () -> cache.get("token", failing));
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void disabledCacheAlwaysVerifies() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(false, 100, Duration.ofMinutes(10));
+        Function<String, VerifiedToken> verifier = verifier(Duration.ofMinutes(15));
+
+        cache.get("token", verifier);
+        cache.get("token", verifier);
+
+        assertEquals(2, verifications.get());
+    }
+
+    private Function<String, VerifiedToken> verifier(Duration ttl) {
+        return token -> {
+            verifications.incrementAndGet();
+            long now = System.currentTimeMillis();
+            return new VerifiedToken("user@example.com", token, new Date(now), new Date(now + ttl.toMillis()), null);
+        };
+    }
+}